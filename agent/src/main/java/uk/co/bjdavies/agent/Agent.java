@@ -30,6 +30,7 @@ import java.util.zip.ZipFile;
 @Slf4j
 public class Agent {
     private static final String GENERATED_DATE_PATTERN = "yyyy-MM-dd'T'hh:mm:ss.SSSZZZ";
+    private static final String RELATION_ACCESSOR_PREFIX = "__relation_";
     private static final Set<ClassLoader> loaders = new HashSet<ClassLoader>();
     private static final List<CtClass> models = new ArrayList<CtClass>();
     private static ClassPool cp;
@@ -241,6 +242,103 @@ public class Agent {
                 }
             }
         }
+
+        addHydrators(target, targetMethods);
+        addLazyRelations(target);
+    }
+
+    /**
+     * This will make every read of a relation field inside the model go through a generated accessor that loads
+     * the relation first, so relations are only queried when they are used.
+     */
+    private static void addLazyRelations(CtClass target) throws NotFoundException, CannotCompileException {
+        List<CtField> relations = new ArrayList<CtField>();
+        for (CtField field : target.getDeclaredFields()) {
+            if (field.hasAnnotation("uk.co.bjdavies.api.db.methods.BelongsTo") ||
+                    field.hasAnnotation("uk.co.bjdavies.api.db.methods.HasMany")) {
+                relations.add(field);
+            }
+        }
+        if (relations.isEmpty()) {
+            return;
+        }
+
+        CodeConverter conv = new CodeConverter();
+        for (CtField field : relations) {
+            conv.replaceFieldRead(field, target, RELATION_ACCESSOR_PREFIX + field.getName());
+        }
+        // the accessors are added after so they read the field itself
+        target.instrument(conv);
+
+        for (CtField field : relations) {
+            String model = "((" + target.getName() + ") model)";
+            CtMethod accessor = CtNewMethod.make("public static " + field.getType().getName() + " " +
+                    RELATION_ACCESSOR_PREFIX + field.getName() + "(Object model) {" +
+                    model + ".loadRelation(\"" + field.getName() + "\");" +
+                    "return " + model + "." + field.getName() + "; }", target);
+            addGeneratedAnnotation(accessor, target);
+            target.addMethod(accessor);
+        }
+    }
+
+    /**
+     * This will generate hydrate(ResultSet, int[]) and dehydrate() for the model, they read and write the columns
+     * straight into the typed fields instead of ImplModel going through the fields one by one.
+     * The columns are in the order the fields are declared which is the same order ModelMetadata uses.
+     */
+    private static void addHydrators(CtClass target, CtMethod[] targetMethods) throws NotFoundException,
+            CannotCompileException {
+        for (CtMethod method : targetMethods) {
+            if ("hydrate".equals(method.getName()) || "dehydrate".equals(method.getName())) {
+                log.info("Detected method: " + method.getName() + ", skipping hydrators.");
+                return;
+            }
+        }
+
+        List<CtField> columns = new ArrayList<CtField>();
+        for (CtField field : target.getDeclaredFields()) {
+            if (field.hasAnnotation("uk.co.bjdavies.api.db.fields.IntField") ||
+                    field.hasAnnotation("uk.co.bjdavies.api.db.fields.StringField")) {
+                columns.add(field);
+            }
+        }
+
+        StringBuilder hydrate = new StringBuilder(
+                "protected void hydrate(java.sql.ResultSet row, int[] indexes) throws java.sql.SQLException {");
+        StringBuilder dehydrate = new StringBuilder("protected Object[] dehydrate() {")
+                .append("Object[] values = new Object[").append(columns.size()).append("];");
+
+        for (int i = 0; i < columns.size(); i++) {
+            CtField field = columns.get(i);
+            String name = field.getName();
+            String index = "indexes[" + i + "]";
+            String type = field.getType().getName();
+            hydrate.append("if (").append(index).append(" > 0) {");
+            if ("int".equals(type)) {
+                hydrate.append("this.").append(name).append(" = row.getInt(").append(index).append(");");
+                dehydrate.append("values[").append(i).append("] = Integer.valueOf(this.").append(name).append(");");
+            } else if ("java.lang.Integer".equals(type)) {
+                hydrate.append("this.").append(name).append(" = Integer.valueOf(row.getInt(").append(index).append("));")
+                        .append("if (row.wasNull()) { this.").append(name).append(" = null; }");
+                dehydrate.append("values[").append(i).append("] = this.").append(name).append(";");
+            } else if ("java.lang.String".equals(type)) {
+                hydrate.append("this.").append(name).append(" = row.getString(").append(index).append(");");
+                dehydrate.append("values[").append(i).append("] = this.").append(name).append(";");
+            } else {
+                log.info("Unsupported column type: " + type + " " + name + ", skipping hydrators.");
+                return;
+            }
+            hydrate.append("}");
+        }
+
+        hydrate.append("}");
+        dehydrate.append("return values; }");
+
+        for (String body : new String[]{hydrate.toString(), dehydrate.toString()}) {
+            CtMethod newMethod = CtNewMethod.make(body, target);
+            addGeneratedAnnotation(newMethod, target);
+            target.addMethod(newMethod);
+        }
     }
 
     private static void addGeneratedAnnotation(CtMethod newMethod, CtClass target) {
@@ -55,4 +55,33 @@ public interface IDatabaseConfig {
      * @return String
      */
     String getDatabase();
+
+    /**
+     * Whether models annotated with {@link uk.co.bjdavies.api.db.Cached} are cached, this turns it off for all of them.
+     * default true
+     *
+     * @return boolean
+     */
+    default boolean isModelCacheEnabled() {
+        return true;
+    }
+
+    /**
+     * This is how many models can be waiting for a deferred save before they are all written, see
+     * {@link uk.co.bjdavies.api.db.WriteBehind}. default 500
+     *
+     * @return int
+     */
+    default int getWriteBehindMaxPending() {
+        return 500;
+    }
+
+    /**
+     * This is the most milliseconds a deferred save waits before it is written. default 1000
+     *
+     * @return long
+     */
+    default long getWriteBehindFlushInterval() {
+        return 1000;
+    }
 }
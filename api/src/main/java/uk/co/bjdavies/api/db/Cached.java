@@ -0,0 +1,52 @@
+package uk.co.bjdavies.api.db;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This annotation will keep the rows of the model in memory after they are read so looking the same model up again
+ * doesn't go to the database.
+ * <p>
+ * Lookups by the primary key or one of the {@link #lookup()} columns are cached e.g.
+ * {@code @Cached(lookup = {"guildId"})} caches {@code Model.find(1)} and {@code Model.where("guildId", id).first()}.
+ * Any write to the model's table clears its cache.
+ * </p>
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+@Target({ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Cached {
+
+    /**
+     * These are the columns other than the primary key that lookups are cached for.
+     *
+     * @return String[]
+     */
+    String[] lookup() default {};
+
+    /**
+     * This is the most lookups that are kept, the least recently used are evicted first.
+     *
+     * @return long
+     */
+    long maximumSize() default 1000;
+
+    /**
+     * This is how long a lookup is kept for after it was read.
+     *
+     * @return long
+     */
+    long expireAfter() default 10;
+
+    /**
+     * This is the unit of {@link #expireAfter()}.
+     *
+     * @return TimeUnit
+     */
+    TimeUnit unit() default TimeUnit.MINUTES;
+}
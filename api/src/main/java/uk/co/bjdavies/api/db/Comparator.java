@@ -12,5 +12,25 @@ public enum Comparator {
     GREATER_THAN_OR_EQUAL_TO,
     LESS_THAN_OR_EQUAL_TO,
     LIKE,
-    NOT_LIKE
+    NOT_LIKE,
+    /**
+     * The column is one of the values of the {@link WhereStatement}.
+     */
+    IN,
+    /**
+     * The column isn't any of the values of the {@link WhereStatement}.
+     */
+    NOT_IN,
+    /**
+     * The column is between the two values of the {@link WhereStatement}, both included.
+     */
+    BETWEEN,
+    /**
+     * The column is null, the {@link WhereStatement} has no value.
+     */
+    IS_NULL,
+    /**
+     * The column isn't null, the {@link WhereStatement} has no value.
+     */
+    IS_NOT_NULL
 }
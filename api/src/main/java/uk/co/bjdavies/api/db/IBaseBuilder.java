@@ -1,5 +1,7 @@
 package uk.co.bjdavies.api.db;
 
+import java.util.Collection;
+
 /**
  * @author ben.davies99@outlook.com (Ben Davies)
  * @since 1.0.0
@@ -48,4 +50,49 @@ public interface IBaseBuilder {
      */
     IBaseBuilder or(WhereStatement... statement);
 
+    /**
+     * This will only return the rows where the column is one of the values, they are bound to the query and a list
+     * too long to bind at once is split into several queries.
+     *
+     * @param key    the column name
+     * @param values the values the column can be
+     * @return {@link IBaseBuilder}
+     */
+    IBaseBuilder whereIn(String key, Collection<?> values);
+
+    /**
+     * This will only return the rows where the column isn't any of the values.
+     *
+     * @param key    the column name
+     * @param values the values the column can't be
+     * @return {@link IBaseBuilder}
+     */
+    IBaseBuilder whereNotIn(String key, Collection<?> values);
+
+    /**
+     * This will only return the rows where the column is between the two values, both included.
+     *
+     * @param key  the column name
+     * @param low  the lowest value
+     * @param high the highest value
+     * @return {@link IBaseBuilder}
+     */
+    IBaseBuilder between(String key, Object low, Object high);
+
+    /**
+     * This will only return the rows where the column is null.
+     *
+     * @param key the column name
+     * @return {@link IBaseBuilder}
+     */
+    IBaseBuilder whereNull(String key);
+
+    /**
+     * This will only return the rows where the column isn't null.
+     *
+     * @param key the column name
+     * @return {@link IBaseBuilder}
+     */
+    IBaseBuilder whereNotNull(String key);
+
 }
@@ -1,5 +1,7 @@
 package uk.co.bjdavies.api.db;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -16,6 +18,14 @@ public interface ICommandBuilder extends IBaseBuilder {
      */
     boolean insert(Map<String, Object> insertValues);
 
+    /**
+     * This will insert a row into the table and return the key the database generated for it.
+     *
+     * @param insertValues e.g. "name" => "Ben"
+     * @return long the generated key or -1 if the row has not been inserted.
+     */
+    long insertGetId(Map<String, Object> insertValues);
+
     /**
      * This
      *
@@ -26,6 +36,24 @@ public interface ICommandBuilder extends IBaseBuilder {
 
     boolean delete();
 
+    /**
+     * This will insert all of the rows into the table in a single transaction using batches.
+     *
+     * @param rows each row e.g. "name" => "Ben"
+     * @return int the number of rows inserted.
+     */
+    int insertMany(List<Map<String, Object>> rows);
+
+    /**
+     * This will update all of the rows in a single transaction using batches, each row is matched on its value for
+     * the key column and the rest of its values are persisted. Any where statements on this builder are ignored.
+     *
+     * @param keyColumn the column that identifies the row e.g. "id", every row must have a value for it.
+     * @param rows      update values that you want to persist to database
+     * @return int the number of rows updated.
+     */
+    int updateMany(String keyColumn, List<Map<String, Object>> rows);
+
     @Override
     ICommandBuilder where(String key, Object value);
 
@@ -41,6 +69,21 @@ public interface ICommandBuilder extends IBaseBuilder {
     @Override
     ICommandBuilder or(WhereStatement... statement);
 
+    @Override
+    ICommandBuilder whereIn(String key, Collection<?> values);
+
+    @Override
+    ICommandBuilder whereNotIn(String key, Collection<?> values);
+
+    @Override
+    ICommandBuilder between(String key, Object low, Object high);
+
+    @Override
+    ICommandBuilder whereNull(String key);
+
+    @Override
+    ICommandBuilder whereNotNull(String key);
+
     /**
      * This will build the sql for the command INSERT INTO, UPDATE, DELETE
      * (?, ?, ?) that will get prepared by the connection.
@@ -1,8 +1,19 @@
 package uk.co.bjdavies.api.db;
 
+import reactor.core.publisher.Flux;
+
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * This is the connection interface that'll deal with high level abstraction with dealing with a database such as
@@ -12,6 +23,11 @@ import java.util.List;
  * #insertGetId
  * #update
  * #delte
+ * <p>
+ * The methods added since 1.0.0 have default bodies so connections written against the older interface still work,
+ * they either fall back to the methods it already had or throw an {@link UnsupportedOperationException} saying what
+ * the connection is missing.
+ * </p>
  *
  * @author ben.davies99@outlook.com (Ben Davies)
  * @since 1.0.0
@@ -26,7 +42,325 @@ public interface IConnection {
 
     <T extends IDBRecord> List<T> executeQuery(IQueryBuilder<T> query) throws SQLException;
 
+    /**
+     * This will run the query and turn each row into an object with the mapper, straight from the result set.
+     *
+     * @param query  - The query to run.
+     * @param mapper - The mapper for the rows, it is only used for this query.
+     * @param <R>    - The type the rows are turned into.
+     * @return List
+     * @throws SQLException if the query fails or a row cannot be mapped.
+     */
+    @SuppressWarnings("deprecation")
+    default <R> List<R> executeQuery(IQueryBuilder<?> query, IRowMapper<R> mapper) throws SQLException {
+        List<R> rows = new ArrayList<>();
+        try (PreparedStatement statement = prepare(getSQLConnection(), query.buildStatement());
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                rows.add(mapper.map(resultSet));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * This will run a query that returns a single number such as a COUNT(*) and return it.
+     *
+     * @param query - The query to run and the values bound to it.
+     * @return long - The value of the first column of the first row or 0 if there are no rows.
+     * @throws SQLException if the query fails.
+     */
+    @SuppressWarnings("deprecation")
+    default long executeScalar(ISQLCommand query) throws SQLException {
+        try (PreparedStatement statement = prepare(getSQLConnection(), query);
+             ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * This will stream the rows of the query as they are read, the query is ran on the database scheduler when it
+     * is subscribed to and the connection is given back once the flux terminates or is cancelled.
+     *
+     * @param query - The query to run, it is built when this is called.
+     * @param <T>   - The type of the rows.
+     * @return {@link Flux}
+     */
+    default <T extends IDBRecord> Flux<T> streamQuery(IQueryBuilder<T> query) {
+        return Flux.defer(() -> {
+            try {
+                return Flux.fromIterable(executeQuery(query));
+            } catch (SQLException e) {
+                return Flux.error(e);
+            }
+        });
+    }
+
+    /**
+     * This will stream the rows of the query turned into objects with the mapper, see
+     * {@link #streamQuery(IQueryBuilder)}.
+     *
+     * @param query  - The query to run, it is built when this is called.
+     * @param mapper - The mapper for the rows, it is only used for this query.
+     * @param <R>    - The type the rows are turned into.
+     * @return {@link Flux}
+     */
+    default <R> Flux<R> streamQuery(IQueryBuilder<?> query, IRowMapper<R> mapper) {
+        return Flux.defer(() -> {
+            try {
+                return Flux.fromIterable(executeQuery(query, mapper));
+            } catch (SQLException e) {
+                return Flux.error(e);
+            }
+        });
+    }
+
+    /**
+     * This will open a cursor over the rows of the query turned into objects with the mapper, the query runs on the
+     * calling thread and keeps a connection until the cursor is read to the end or closed.
+     *
+     * @param query     - The query to run.
+     * @param mapper    - The mapper for the rows, it is only used for this query.
+     * @param fetchSize - How many rows the driver should fetch at a time, 0 for its default.
+     * @param <R>       - The type the rows are turned into.
+     * @return {@link ICursor}
+     * @throws SQLException if the query fails.
+     */
+    default <R> ICursor<R> cursor(IQueryBuilder<?> query, IRowMapper<R> mapper, int fetchSize) throws SQLException {
+        return cursorOf(executeQuery(query, mapper));
+    }
+
+    /**
+     * This will open a cursor over the rows of the query, see {@link #cursor(IQueryBuilder, IRowMapper, int)}.
+     *
+     * @param query     - The query to run.
+     * @param fetchSize - How many rows the driver should fetch at a time, 0 for its default.
+     * @param <T>       - The type of the rows.
+     * @return {@link ICursor}
+     * @throws SQLException if the query fails.
+     */
+    default <T extends IDBRecord> ICursor<T> cursor(IQueryBuilder<T> query, int fetchSize) throws SQLException {
+        return cursorOf(executeQuery(query));
+    }
+
     Object executeCommand(ICommandBuilder command) throws SQLException;
 
+    /**
+     * This will execute an insert command and return the key the database generated for the new row.
+     *
+     * @param command - The insert command.
+     * @return long - The generated key or -1 if no row was inserted. Like {@link #executeCommand(ICommandBuilder)} an
+     * implementation may log a failed insert outside a transaction and return -1 too, the default body doesn't.
+     * @throws SQLException if the insert fails, it always throws inside a transaction so it is rolled back.
+     */
+    @SuppressWarnings("deprecation")
+    default long executeInsert(ICommandBuilder command) throws SQLException {
+        ISQLCommand sqlCommand = command.buildCommand();
+        try (PreparedStatement statement = prepare(getSQLConnection(), sqlCommand,
+                Statement.RETURN_GENERATED_KEYS)) {
+            if (statement.executeUpdate() == 0) {
+                return -1;
+            }
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                return keys.next() ? keys.getLong(1) : -1;
+            }
+        }
+    }
+
+    /**
+     * This will execute the commands as JDBC batches inside a single transaction, commands next to each other with
+     * the same SQL are sent in the same batch. If a transaction is already open on this thread they are part of it.
+     *
+     * @param commands - The commands to execute, in order.
+     * @return int - The number of commands that changed a row.
+     * @throws SQLException if any of the commands fail, none of them will have been committed.
+     */
+    @SuppressWarnings("deprecation")
+    default int executeBatch(List<ISQLCommand> commands) throws SQLException {
+        if (commands.isEmpty()) {
+            return 0;
+        }
+        return inTransaction(getSQLConnection(), () -> {
+            int changed = 0;
+            int i = 0;
+            while (i < commands.size()) {
+                String sql = commands.get(i).getSQL();
+                try (PreparedStatement statement = getSQLConnection().prepareStatement(sql)) {
+                    for (; i < commands.size() && commands.get(i).getSQL().equals(sql); i++) {
+                        bind(statement, commands.get(i));
+                        statement.addBatch();
+                    }
+                    for (int result : statement.executeBatch()) {
+                        if (result > 0 || result == Statement.SUCCESS_NO_INFO) {
+                            changed++;
+                        }
+                    }
+                }
+            }
+            return changed;
+        }, changed -> false);
+    }
+
+    /**
+     * This will run the work inside a transaction, it is committed once the work returns unless it has been rolled
+     * back and it is rolled back if the work throws. The commands in the work must be made on the calling thread and
+     * a command that fails throws instead of returning false so the work is rolled back. If a transaction is already
+     * open on this thread the work runs inside a savepoint of it, rolling it back only undoes the work.
+     * <p>
+     * The default body runs the transaction on {@link #getSQLConnection()}, so the connection's commands have to run
+     * on it too for them to be part of it.
+     * </p>
+     *
+     * @param work - The work to do inside the transaction.
+     * @throws SQLException if the transaction cannot be committed.
+     */
+    @SuppressWarnings("deprecation")
+    default void transaction(Consumer<ITransaction> work) throws SQLException {
+        inTransaction(getSQLConnection(), () -> {
+            Transaction transaction = new Transaction(this);
+            work.accept(transaction);
+            return transaction;
+        }, Transaction::isRolledBack);
+    }
+
+    /**
+     * This will execute a raw statement such as a CREATE TABLE, it is always ran on the connection that writes.
+     *
+     * @param sql - The statement to execute.
+     * @return boolean - true if the statement returned a result set.
+     * @throws SQLException if the statement fails.
+     */
+    @SuppressWarnings("deprecation")
+    default boolean execute(String sql) throws SQLException {
+        try (Statement statement = getSQLConnection().createStatement()) {
+            return statement.execute(sql);
+        }
+    }
+
+    /**
+     * This will return the connection that writes to the database, it is shared so it must not be closed and its
+     * autocommit / transaction state must not be changed.
+     *
+     * @return Connection
+     * @deprecated use {@link #execute(String)} instead.
+     */
+    @Deprecated
     Connection getSQLConnection();
+
+    /**
+     * This will close every connection to the database.
+     */
+    default void close() {
+    }
+
+    /**
+     * This will prepare the command on the connection with its values bound, it is used by the default bodies.
+     *
+     * @param connection - The connection to prepare it on.
+     * @param command    - The command.
+     * @return PreparedStatement - The caller has to close it.
+     * @throws SQLException if the command cannot be prepared.
+     */
+    private static PreparedStatement prepare(Connection connection, ISQLCommand command) throws SQLException {
+        return prepare(connection, command, Statement.NO_GENERATED_KEYS);
+    }
+
+    private static PreparedStatement prepare(Connection connection, ISQLCommand command, int generatedKeys)
+            throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(command.getSQL(), generatedKeys);
+        try {
+            bind(statement, command);
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+        return statement;
+    }
+
+    private static void bind(PreparedStatement statement, ISQLCommand command) throws SQLException {
+        List<Object> parameters = command.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            statement.setObject(i + 1, parameters.get(i));
+        }
+    }
+
+    /**
+     * This will run the work inside a transaction on the connection, or inside a savepoint if the connection is
+     * already in one, it is used by the default bodies.
+     *
+     * @param connection - The connection.
+     * @param work       - The work.
+     * @param rolledBack - Whether the work rolled itself back, given its result.
+     * @param <R>        - The result of the work.
+     * @return R
+     * @throws SQLException if the work or the commit fails, it will have been rolled back.
+     */
+    private static <R> R inTransaction(Connection connection, Callable<R> work, Predicate<R> rolledBack)
+            throws SQLException {
+        boolean outer = connection.getAutoCommit();
+        Savepoint savepoint = outer ? null : connection.setSavepoint();
+        if (outer) {
+            connection.setAutoCommit(false);
+        }
+        try {
+            R result = work.call();
+            if (rolledBack.test(result)) {
+                rollback(connection, savepoint);
+            } else if (outer) {
+                connection.commit();
+            } else {
+                connection.releaseSavepoint(savepoint);
+            }
+            return result;
+        } catch (Exception e) {
+            rollback(connection, savepoint);
+            if (e instanceof SQLException) {
+                throw (SQLException) e;
+            }
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            throw new SQLException(e);
+        } finally {
+            if (outer) {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static void rollback(Connection connection, Savepoint savepoint) throws SQLException {
+        if (savepoint == null) {
+            connection.rollback();
+        } else {
+            connection.rollback(savepoint);
+            connection.releaseSavepoint(savepoint);
+        }
+    }
+
+    /**
+     * This will make a cursor over rows that have already been read, it is used by the default bodies.
+     *
+     * @param rows - The rows.
+     * @param <R>  - The type of the rows.
+     * @return {@link ICursor}
+     */
+    private static <R> ICursor<R> cursorOf(List<R> rows) {
+        Iterator<R> iterator = rows.iterator();
+        return new ICursor<>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public R next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
 }
@@ -0,0 +1,24 @@
+package uk.co.bjdavies.api.db;
+
+import java.util.Iterator;
+
+/**
+ * This is an open query that reads its rows one at a time as they are iterated, only the rows the driver has fetched
+ * are ever in memory so it can go over tables of any size.
+ * <p>
+ * It holds a connection to the database until every row has been read or it is closed, so always use it in a
+ * try-with-resources.
+ * </p>
+ *
+ * @param <T> - The type of the rows.
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+public interface ICursor<T> extends Iterator<T>, AutoCloseable {
+
+    /**
+     * This will close the query and give the connection back, it does nothing if it is already closed.
+     */
+    @Override
+    void close();
+}
@@ -1,5 +1,6 @@
 package uk.co.bjdavies.api.db;
 
+import java.io.IOException;
 import java.util.Map;
 
 /**
@@ -22,5 +23,17 @@ public interface IDBRecord {
 
     String toJsonString(String... keysToHide);
 
+    /**
+     * This will write the record as JSON straight to the output without making a String of it first.
+     *
+     * @param out        - Where to write the JSON.
+     * @param keysToHide - The columns to leave out, they are matched ignoring case.
+     * @throws IOException if the output can't be written to.
+     * @since 2.2.0
+     */
+    default void writeJson(Appendable out, String... keysToHide) throws IOException {
+        out.append(toJsonString(keysToHide));
+    }
+
     boolean equals(String key, String value);
 }
@@ -1,5 +1,8 @@
 package uk.co.bjdavies.api.db;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -84,6 +87,15 @@ public interface IModelBuilder<T extends Model> {
 
     IModelBuilder<T> select(String... columns);
 
+    /**
+     * Only return the models after the value of the column, see {@link IQueryBuilder#after(String, Object)}.
+     *
+     * @param column    the column to page by
+     * @param lastValue the value of the column in the last model of the previous page
+     * @return {@link IModelBuilder}
+     */
+    IModelBuilder<T> after(String column, Object lastValue);
+
     IModelBuilder<T> where(String key, Object value);
 
     IModelBuilder<T> where(String key, Comparator comparator, Object value);
@@ -94,11 +106,82 @@ public interface IModelBuilder<T extends Model> {
 
     IModelBuilder<T> or(WhereStatement... statement);
 
+    /**
+     * See {@link IBaseBuilder#whereIn(String, Collection)}.
+     */
+    IModelBuilder<T> whereIn(String key, Collection<?> values);
+
+    IModelBuilder<T> whereNotIn(String key, Collection<?> values);
+
+    IModelBuilder<T> between(String key, Object low, Object high);
+
+    IModelBuilder<T> whereNull(String key);
+
+    IModelBuilder<T> whereNotNull(String key);
+
+    /**
+     * Eager load the relations for all the models that are returned, each relation is loaded with a single query.
+     * Relations that aren't eager loaded are loaded the first time they are read.
+     *
+     * @param relations the names of the relation fields
+     * @return {@link IModelBuilder}
+     */
+    IModelBuilder<T> with(String... relations);
+
     int count();
 
     boolean exists();
 
     boolean doesntExist();
 
+    /**
+     * Stream the models as they are read from the database, this does not block the subscribing thread.
+     *
+     * @return {@link Flux}
+     */
+    <E extends Model> Flux<E> stream();
+
+    /**
+     * Open a cursor over the models, they are read as it is iterated instead of all at once.
+     *
+     * @return {@link ICursor}
+     */
+    <E extends Model> ICursor<E> cursor();
+
+    /**
+     * The non blocking version of {@link #get()}.
+     *
+     * @return {@link Mono}
+     */
+    <E extends Model> Mono<List<E>> getAsync();
+
+    /**
+     * The non blocking version of {@link #first()}, it is empty if there are no models.
+     *
+     * @return {@link Mono}
+     */
+    <E extends Model> Mono<E> firstAsync();
+
+    /**
+     * The non blocking version of {@link #count()}.
+     *
+     * @return {@link Mono}
+     */
+    Mono<Integer> countAsync();
+
+    /**
+     * The non blocking version of {@link #exists()}.
+     *
+     * @return {@link Mono}
+     */
+    Mono<Boolean> existsAsync();
+
+    /**
+     * The non blocking version of {@link #doesntExist()}.
+     *
+     * @return {@link Mono}
+     */
+    Mono<Boolean> doesntExistAsync();
+
     String buildQuery();
 }
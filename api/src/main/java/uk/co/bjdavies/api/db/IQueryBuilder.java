@@ -1,5 +1,8 @@
 package uk.co.bjdavies.api.db;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -85,6 +88,31 @@ public interface IQueryBuilder<T extends IDBRecord> extends IBaseBuilder {
 
     IQueryBuilder<T> select(String... columns);
 
+    /**
+     * This will only return rows after the value of the column, ordered by the column, so a table can be paged through
+     * by passing the last value of each page e.g. {@code after("id", lastId).limit(100)}.
+     * Unlike an offset this stays fast however far into the table the page is, if {@link #reverse()} is used the rows
+     * are before the value instead.
+     *
+     * @param column    the column to page by, it should be unique and indexed such as the primary key
+     * @param lastValue the value of the column in the last row of the previous page
+     * @return {@link IQueryBuilder}
+     */
+    IQueryBuilder<T> after(String column, Object lastValue);
+
+    /**
+     * This will join another table to the query so only rows with a match in it are returned, its columns can be
+     * used in the where, select and order by as {@code alias.column} e.g.
+     * {@code join("ignore_user", "p", "ignoreId", "id").where("p.userId", id)}.
+     *
+     * @param table    the table to join
+     * @param alias    what the joined table is called in the query
+     * @param column   the column of the joined table to match
+     * @param onColumn the column of this table it has to equal
+     * @return {@link IQueryBuilder}
+     */
+    IQueryBuilder<T> join(String table, String alias, String column, String onColumn);
+
     @Override
     IQueryBuilder<T> where(String key, Object value);
 
@@ -100,11 +128,119 @@ public interface IQueryBuilder<T extends IDBRecord> extends IBaseBuilder {
     @Override
     IQueryBuilder<T> or(WhereStatement... statement);
 
+    @Override
+    IQueryBuilder<T> whereIn(String key, Collection<?> values);
+
+    @Override
+    IQueryBuilder<T> whereNotIn(String key, Collection<?> values);
+
+    @Override
+    IQueryBuilder<T> between(String key, Object low, Object high);
+
+    @Override
+    IQueryBuilder<T> whereNull(String key);
+
+    @Override
+    IQueryBuilder<T> whereNotNull(String key);
+
     int count();
 
     boolean exists();
 
     boolean doesntExist();
 
+    /**
+     * Stream the rows as they are read from the database, this does not block the subscribing thread.
+     *
+     * @return {@link Flux}
+     */
+    Flux<T> stream();
+
+    /**
+     * Stream the rows as they are read from the database, this does not block the subscribing thread.
+     *
+     * @param columns the columns you want to specify * by default
+     * @return {@link Flux}
+     */
+    Flux<T> stream(String... columns);
+
+    /**
+     * Open a cursor over the rows, they are read as it is iterated instead of all at once.
+     *
+     * @return {@link ICursor}
+     */
+    ICursor<T> cursor();
+
+    /**
+     * Open a cursor over the rows, they are read as it is iterated instead of all at once.
+     *
+     * @param fetchSize how many rows the driver should fetch at a time
+     * @return {@link ICursor}
+     */
+    ICursor<T> cursor(int fetchSize);
+
+    /**
+     * The non blocking version of {@link #get()}.
+     *
+     * @return {@link Mono}
+     */
+    Mono<List<T>> getAsync();
+
+    /**
+     * The non blocking version of {@link #get(String...)}.
+     *
+     * @param columns the columns you want to specify * by default
+     * @return {@link Mono}
+     */
+    Mono<List<T>> getAsync(String... columns);
+
+    /**
+     * The non blocking version of {@link #first()}, it is empty if there are no rows.
+     *
+     * @return {@link Mono}
+     */
+    Mono<T> firstAsync();
+
+    /**
+     * The non blocking version of {@link #first(String...)}, it is empty if there are no rows.
+     *
+     * @param columns the columns you want to specify * by default
+     * @return {@link Mono}
+     */
+    Mono<T> firstAsync(String... columns);
+
+    /**
+     * The non blocking version of {@link #count()}.
+     *
+     * @return {@link Mono}
+     */
+    Mono<Integer> countAsync();
+
+    /**
+     * The non blocking version of {@link #exists()}.
+     *
+     * @return {@link Mono}
+     */
+    Mono<Boolean> existsAsync();
+
+    /**
+     * The non blocking version of {@link #doesntExist()}.
+     *
+     * @return {@link Mono}
+     */
+    Mono<Boolean> doesntExistAsync();
+
+    /**
+     * This will build the query with a ? in place of every value.
+     *
+     * @return String
+     */
     String buildQuery();
+
+    /**
+     * This will build the query with a ? in place of every value along with the values to bind to them, in order.
+     *
+     * @return {@link ISQLCommand}
+     */
+    ISQLCommand buildStatement();
 }
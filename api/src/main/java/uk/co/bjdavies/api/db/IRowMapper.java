@@ -0,0 +1,25 @@
+package uk.co.bjdavies.api.db;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * This turns the current row of a query into an object, a mapper is used for a single query so it can work out where
+ * its columns are from the first row it is given.
+ *
+ * @param <R> - The type the rows are turned into.
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+@FunctionalInterface
+public interface IRowMapper<R> {
+
+    /**
+     * This will turn the row the result set is on into an object, it must not move the result set.
+     *
+     * @param row - The result set on the row to map.
+     * @return R
+     * @throws SQLException if the row cannot be read.
+     */
+    R map(ResultSet row) throws SQLException;
+}
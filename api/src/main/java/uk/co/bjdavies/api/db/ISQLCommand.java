@@ -1,5 +1,6 @@
 package uk.co.bjdavies.api.db;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -11,4 +12,13 @@ public interface ISQLCommand {
     String getSQL();
 
     List<String> getValues();
+
+    /**
+     * These are the values bound to the SQL with their types kept, {@link #getValues()} is them as text.
+     *
+     * @return List
+     */
+    default List<Object> getParameters() {
+        return new ArrayList<>(getValues());
+    }
 }
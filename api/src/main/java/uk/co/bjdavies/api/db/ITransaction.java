@@ -0,0 +1,43 @@
+package uk.co.bjdavies.api.db;
+
+/**
+ * This is a database transaction, every command made through it is committed together once the work is done or
+ * none of them are if the work throws an exception or {@link #rollback()} is called.
+ * <p>
+ * Queries made through it on the same thread can see the commands that haven't been committed yet.
+ * </p>
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+public interface ITransaction {
+
+    /**
+     * This will return a command builder for the table that runs inside this transaction.
+     *
+     * @param tableName - The name of the table.
+     * @return {@link ICommandBuilder}
+     */
+    ICommandBuilder command(String tableName);
+
+    /**
+     * This will return a query builder for the table that runs inside this transaction.
+     *
+     * @param tableName - The name of the table.
+     * @param <T>       - The type of the rows.
+     * @return {@link IQueryBuilder}
+     */
+    <T extends IDBRecord> IQueryBuilder<T> table(String tableName);
+
+    /**
+     * This will make sure nothing in this transaction is committed.
+     */
+    void rollback();
+
+    /**
+     * This will return true if {@link #rollback()} has been called.
+     *
+     * @return boolean
+     */
+    boolean isRolledBack();
+}
@@ -0,0 +1,31 @@
+package uk.co.bjdavies.api.db;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation will keep the whole table of the model in memory so it can be read without going to the database,
+ * it is meant for small tables that are read all the time.
+ * <p>
+ * The table is read once the first time the model is used, writes still go to the database and the table in memory
+ * is updated after each one. Lookups of a single column equal to a value, counts and exists are answered from memory
+ * e.g. {@code @InMemory(index = {"channelId"})} makes {@code Ignore.where("channelId", id).doesntExist()} a hash
+ * lookup.
+ * </p>
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+@Target({ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface InMemory {
+
+    /**
+     * These are the columns that have a hash index, lookups by other columns scan the table.
+     *
+     * @return String[]
+     */
+    String[] index() default {};
+}
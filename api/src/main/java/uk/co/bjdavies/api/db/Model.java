@@ -1,5 +1,6 @@
 package uk.co.bjdavies.api.db;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -93,6 +94,33 @@ public abstract class Model implements IDBRecord {
     public void save() {
     }
 
+    /**
+     * This will save the model later along with the other deferred saves in a single transaction, saving the same
+     * model again before then only writes it once. New models are saved straight away.
+     */
+    public void saveDeferred() {
+    }
+
+    /**
+     * This checks whether any of the model's fields have changed since it was loaded or last saved, a model that
+     * hasn't been saved yet is always dirty.
+     *
+     * @return boolean
+     */
+    public boolean isDirty() {
+        return true;
+    }
+
+    /**
+     * This checks whether the column's field has changed since the model was loaded or last saved.
+     *
+     * @param column - The name of the column.
+     * @return boolean
+     */
+    public boolean isDirty(String column) {
+        return true;
+    }
+
     /**
      * This will delete the current model be careful once this is done the data will be deleted from the database and
      * cannot be undone.
@@ -187,6 +215,16 @@ public abstract class Model implements IDBRecord {
         return null;
     }
 
+    /**
+     * Write your model as json straight to the output, its protected fields are left out.
+     *
+     * @param out - Where to write the json.
+     * @throws IOException if the output can't be written to.
+     */
+    public void writeJson(Appendable out) throws IOException {
+        throw new UnsupportedOperationException("Not instrumented please install agent.");
+    }
+
     /**
      * Refer to {@link IDBRecord}
      *
@@ -0,0 +1,39 @@
+package uk.co.bjdavies.api.db;
+
+/**
+ * This is a transaction that makes its builders from the connection it is open on, it is used by
+ * {@link IConnection#transaction(java.util.function.Consumer)}.
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+public class Transaction implements ITransaction {
+
+    private final IConnection connection;
+
+    private boolean rolledBack;
+
+    public Transaction(IConnection connection) {
+        this.connection = connection;
+    }
+
+    @Override
+    public ICommandBuilder command(String tableName) {
+        return connection.createCommandBuilder(tableName);
+    }
+
+    @Override
+    public <T extends IDBRecord> IQueryBuilder<T> table(String tableName) {
+        return connection.createQueryBuilder(tableName, "id");
+    }
+
+    @Override
+    public void rollback() {
+        rolledBack = true;
+    }
+
+    @Override
+    public boolean isRolledBack() {
+        return rolledBack;
+    }
+}
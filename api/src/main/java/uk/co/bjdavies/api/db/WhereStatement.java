@@ -1,6 +1,7 @@
 package uk.co.bjdavies.api.db;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
@@ -11,6 +12,7 @@ import java.util.List;
 public class WhereStatement {
 
     private final List<WhereStatement> group = new ArrayList<>();
+    private List<String> values = Collections.emptyList();
     private String key, value;
     private Comparator comparator;
     private Operator operator;
@@ -47,6 +49,34 @@ public class WhereStatement {
     }
 
 
+    /**
+     * This checks the column without a value such as with {@link Comparator#IS_NULL}.
+     *
+     * @param key        - The column.
+     * @param comparator - How the column is checked.
+     */
+    public WhereStatement(String key, Comparator comparator) {
+        this.key = key;
+        this.comparator = comparator;
+    }
+
+    /**
+     * This compares the column against many values such as with {@link Comparator#IN}.
+     *
+     * @param key        - The column.
+     * @param values     - The values.
+     * @param comparator - How the column is compared to the values.
+     */
+    public WhereStatement(String key, Collection<?> values, Comparator comparator) {
+        this.key = key;
+        this.comparator = comparator;
+        this.values = new ArrayList<>(values.size());
+        for (Object value : values) {
+            this.values.add(String.valueOf(value));
+        }
+    }
+
+
     public String getKey() {
         return key;
     }
@@ -63,6 +93,19 @@ public class WhereStatement {
         this.value = value;
     }
 
+    /**
+     * These are the values for a comparator that takes many of them, it is empty for any other.
+     *
+     * @return List
+     */
+    public List<String> getValues() {
+        return values;
+    }
+
+    public void setValues(List<String> values) {
+        this.values = values;
+    }
+
     public Comparator getComparator() {
         return comparator;
     }
@@ -0,0 +1,23 @@
+package uk.co.bjdavies.api.db;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation makes {@link Model#save()} of the model defer its writes the same as {@link Model#saveDeferred()},
+ * it is meant for models that are saved all the time such as counters bumped on every message.
+ * <p>
+ * Models that haven't been saved yet are still written straight away so they get their primary key. Queries don't
+ * see the deferred changes until they have been flushed, so keep hold of the model rather than looking it up again
+ * for every change.
+ * </p>
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+@Target({ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface WriteBehind {
+}
@@ -0,0 +1,41 @@
+package uk.co.bjdavies.api.db.fields;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation will add an index over more than one column of the model e.g.
+ * {@code @CompositeIndex(columns = {"guildId", "userId"})} for lookups by both.
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+@Target({ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Repeatable(CompositeIndexes.class)
+public @interface CompositeIndex {
+
+    /**
+     * These are the columns of the index in order.
+     *
+     * @return String[]
+     */
+    String[] columns();
+
+    /**
+     * This is the name of the index, by default it is made from the table and the columns.
+     *
+     * @return String
+     */
+    String name() default "";
+
+    /**
+     * Whether the index only allows each combination of values once.
+     *
+     * @return boolean
+     */
+    boolean unique() default false;
+}
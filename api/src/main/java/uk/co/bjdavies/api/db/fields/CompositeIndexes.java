@@ -0,0 +1,18 @@
+package uk.co.bjdavies.api.db.fields;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * This holds a model's {@link CompositeIndex} annotations when it has more than one.
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+@Target({ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CompositeIndexes {
+    CompositeIndex[] value();
+}
@@ -0,0 +1,31 @@
+package uk.co.bjdavies.api.db.fields;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation will add an index on the column so looking the model up by it doesn't scan the whole table.
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+@Target({ElementType.FIELD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Index {
+
+    /**
+     * This is the name of the index, by default it is made from the table and the column.
+     *
+     * @return String
+     */
+    String name() default "";
+
+    /**
+     * Whether the index only allows each value once.
+     *
+     * @return boolean
+     */
+    boolean unique() default false;
+}
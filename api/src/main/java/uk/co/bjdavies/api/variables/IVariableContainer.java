@@ -1,8 +1,13 @@
 package uk.co.bjdavies.api.variables;
 
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 
 /**
  * @author ben.davies99@outlook.com (Ben Davies)
@@ -16,6 +21,30 @@ public interface IVariableContainer {
      */
     void addAllFrom(Class<?> clazz);
 
+    /**
+     * This method will add all the variables (@Variable.class) that are in that class, reading them from instances
+     * that live for the lifecycle specified. The default body ignores the lifecycle and adds them with {@link #addAllFrom(Class)}.
+     *
+     * @param clazz     - The class you want to insert them from.
+     * @param lifecycle - How long the instances of the class live for.
+     */
+    default void addAllFrom(Class<?> clazz, VariableLifecycle lifecycle) {
+        addAllFrom(clazz);
+    }
+
+    /**
+     * This method will add all the variables (@Variable.class) of the provider's class, they will always be read
+     * from the provider e.g. a singleton managed by Guice. The provider is never closed by the container. A container
+     * has to keep the provider to read from it, which the other methods can't do, so the default body throws and
+     * containers that support providers override it.
+     *
+     * @param provider - The instance you want to insert them from.
+     * @throws UnsupportedOperationException if the container doesn't support providers.
+     */
+    default void addProvider(Object provider) {
+        throw new UnsupportedOperationException(getClass().getName() + " doesn't support variable providers.");
+    }
+
     /**
      * This will add a method to the container.
      *
@@ -56,6 +85,59 @@ public interface IVariableContainer {
      */
     Method getMethodVariable(String name);
 
+    /**
+     * This will return a handle that reads the field variable based on the name specified.
+     * The handle's type is (Object[])Object, the array is ignored for fields. The default body reads a field that
+     * isn't static from a new instance of its class each time.
+     *
+     * @param name - the name of the variable.
+     * @return MethodHandle or null if it cannot be found.
+     */
+    default MethodHandle getFieldHandle(String name) {
+        Field field = getFieldVariable(name);
+        if (field == null) {
+            return null;
+        }
+        try {
+            field.setAccessible(true);
+            MethodHandle handle = MethodHandles.lookup().unreflectGetter(field);
+            if (!Modifier.isStatic(field.getModifiers())) {
+                handle = MethodHandles.filterReturnValue(newInstanceHandle(field.getDeclaringClass()), handle);
+            }
+            return MethodHandles.dropArguments(handle.asType(MethodType.methodType(Object.class)), 0,
+                    Object[].class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * This will return a handle that invokes the method variable based on the name specified.
+     * The handle's type is (Object[])Object, the array being the method's arguments. The default body invokes a
+     * method that isn't static on a new instance of its class each time.
+     *
+     * @param name - the name of the variable.
+     * @return MethodHandle or null if it cannot be found.
+     */
+    default MethodHandle getMethodHandle(String name) {
+        Method method = getMethodVariable(name);
+        if (method == null) {
+            return null;
+        }
+        try {
+            method.setAccessible(true);
+            MethodHandle handle = MethodHandles.lookup().unreflect(method);
+            if (!Modifier.isStatic(method.getModifiers())) {
+                handle = MethodHandles.collectArguments(handle, 0, newInstanceHandle(method.getDeclaringClass()));
+            }
+            int parameterCount = method.getParameterCount();
+            return handle.asType(MethodType.genericMethodType(parameterCount))
+                    .asSpreader(Object[].class, parameterCount);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
     /**
      * This checks whether the variable exists in this container.
      *
@@ -63,4 +145,18 @@ public interface IVariableContainer {
      * @return Boolean
      */
     boolean exists(String name);
+
+    /**
+     * This will make a handle that creates a new instance of the class, it is used by the default bodies so the
+     * variables are read from a new instance each time.
+     *
+     * @param clazz - the class the variable is declared in.
+     * @return MethodHandle
+     * @throws ReflectiveOperationException if the class has no empty constructor.
+     */
+    private static MethodHandle newInstanceHandle(Class<?> clazz) throws ReflectiveOperationException {
+        Constructor<?> constructor = clazz.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        return MethodHandles.lookup().unreflectConstructor(constructor);
+    }
 }
@@ -4,6 +4,7 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This annotation will declare to the plugin parser that either the field or the method will be used as a variable
@@ -22,6 +23,9 @@ import java.lang.annotation.Target;
  * }}
  * <p>
  * You would then declare this in a command as $(printString(Hi))
+ * <p>
+ * Expensive variables can keep their value for a while instead of working it out for every message:
+ * {@code @uk.co.bjdavies.api.variables.Variable(cacheFor = 5, cacheUnit = TimeUnit.MINUTES)}
  *
  * @author ben.davies99@outlook.com (Ben Davies)
  * @since 1.0.0
@@ -29,4 +33,19 @@ import java.lang.annotation.Target;
 @Target({ElementType.METHOD, ElementType.FIELD})
 @Retention(RetentionPolicy.RUNTIME)
 public @interface Variable {
+
+    /**
+     * This is how long the value of the variable is kept for before it is worked out again, 0 means it is never kept.
+     * Methods keep a value for each set of arguments they are called with.
+     *
+     * @return long
+     */
+    long cacheFor() default 0;
+
+    /**
+     * This is the unit of {@link #cacheFor()}.
+     *
+     * @return TimeUnit
+     */
+    TimeUnit cacheUnit() default TimeUnit.SECONDS;
 }
@@ -0,0 +1,20 @@
+package uk.co.bjdavies.api.variables;
+
+/**
+ * This declares how long the instance that a class's variables are read from lives for.
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+public enum VariableLifecycle {
+    /**
+     * A new instance of the class is made every time one of its variables is used.
+     */
+    PER_EVALUATION,
+
+    /**
+     * One instance of the class is made when it is added and is shared by all of its variables, if it is
+     * {@link AutoCloseable} it is closed once all of its variables have been removed.
+     */
+    SINGLETON
+}
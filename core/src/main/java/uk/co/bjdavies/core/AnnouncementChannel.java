@@ -2,6 +2,7 @@ package uk.co.bjdavies.core;
 
 import lombok.Getter;
 import lombok.Setter;
+import uk.co.bjdavies.api.db.InMemory;
 import uk.co.bjdavies.api.db.Model;
 import uk.co.bjdavies.api.db.fields.IntField;
 import uk.co.bjdavies.api.db.fields.PrimaryField;
@@ -12,6 +13,7 @@ import uk.co.bjdavies.api.db.fields.Unique;
  * @author ben.davies99@outlook.com (Ben Davies)
  * @since 1.2.7
  */
+@InMemory(index = {"guildId"})
 public class AnnouncementChannel extends Model {
     @IntField
     @PrimaryField
@@ -0,0 +1,53 @@
+package uk.co.bjdavies.command.parser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.co.bjdavies.api.command.ICommandContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This compares parsing a message with {@link DiscordMessageParser} against the regex parser it replaced.
+ * <p>
+ * Run it with {@code ./gradlew :server:jmh}.
+ * </p>
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageParserBenchmark {
+
+    @Param({
+            "help",
+            "say hello world this is a longer value with no flags at all",
+            "play -url=http://example.com/watch?v=abc&t=10 -loud -volume=\"50\" now please"
+    })
+    public String message;
+
+    private final MessageParser parser = new DiscordMessageParser(null);
+    private final MessageParser regexParser = new RegexMessageParser();
+
+    @Benchmark
+    public ICommandContext scanner() {
+        return parser.parseString(message);
+    }
+
+    @Benchmark
+    public ICommandContext regex() {
+        return regexParser.parseString(message);
+    }
+}
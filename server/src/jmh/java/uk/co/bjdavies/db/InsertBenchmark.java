@@ -0,0 +1,85 @@
+package uk.co.bjdavies.db;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This compares inserting a row and getting its id from the database generated key, which is how models are created
+ * now, against reading the whole table to use its size + 1 as the id, which is how they used to be.
+ * <p>
+ * Each inserted row is deleted again so the table stays the same size. Run it with {@code ./gradlew :server:jmh}.
+ * </p>
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InsertBenchmark {
+
+    private static final String TABLE = "insert_benchmark";
+
+    @Param({"100", "10000"})
+    public int rows;
+
+    private File database;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        database = File.createTempFile("insert-benchmark", ".db");
+        DB.install(new TestDatabaseConfig(database.getPath()));
+        DB.getConnection().execute("CREATE TABLE " + TABLE + " (id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT)");
+        List<Map<String, Object>> values = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            values.add(Map.of("name", "row " + i));
+        }
+        DB.insertMany(TABLE, values);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DB.shutdown();
+        for (String suffix : new String[]{"", "-wal", "-shm"}) {
+            //noinspection ResultOfMethodCallIgnored
+            new File(database.getPath() + suffix).delete();
+        }
+    }
+
+    @Benchmark
+    public long insertGetId() {
+        long id = DB.command(TABLE).insertGetId(Map.of("name", "new row"));
+        DB.command(TABLE).where("id", id).delete();
+        return id;
+    }
+
+    @Benchmark
+    public long sizePlusOne() {
+        long id = DB.table(TABLE).get().size() + 1;
+        DB.insert(TABLE, Map.of("id", id, "name", "new row"));
+        DB.command(TABLE).where("id", id).delete();
+        return id;
+    }
+}
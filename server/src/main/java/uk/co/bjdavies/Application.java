@@ -199,6 +199,7 @@ public class Application implements IApplication {
             IDiscordFacade facade = get(IDiscordFacade.class);
             facade.logoutBot().block();
             webServer.stop();
+            DB.shutdown();
 
             Runtime.getRuntime().runFinalization();
             timer.schedule(new TimerTask() {
@@ -225,6 +226,7 @@ public class Application implements IApplication {
             });
             facade.logoutBot().block();
             webServer.stop();
+            DB.shutdown();
             Runtime.getRuntime().runFinalization();
             try {
                 List<String> command = new ArrayList<>();
@@ -0,0 +1,106 @@
+package uk.co.bjdavies.command;
+
+import uk.co.bjdavies.api.command.ICommand;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * This is an immutable lookup table of (namespace, alias, type) to {@link ICommand}.
+ * <p>
+ * The {@link CommandDispatcher} rebuilds it whenever a command or namespace is added or removed and then swaps it in,
+ * so finding the command for a message is a hash probe instead of a scan over every command's aliases.
+ * </p>
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+final class AliasIndex {
+
+    /**
+     * This is the type key used for commands that can be ran from any type of context.
+     */
+    private static final String ANY_TYPE = "all";
+
+    static final AliasIndex EMPTY = new AliasIndex(Collections.emptyMap());
+
+    private final Map<Key, ICommand> index;
+
+    private AliasIndex(Map<Key, ICommand> index) {
+        this.index = index;
+    }
+
+    /**
+     * This will build a new index from the dispatcher's commands, if two commands share an alias in the same
+     * namespace the one that was registered first wins.
+     *
+     * @param commands - The commands keyed by namespace.
+     * @return AliasIndex
+     */
+    static AliasIndex build(Map<String, List<ICommand>> commands) {
+        Map<Key, ICommand> index = new HashMap<>();
+        commands.forEach((namespace, namespaceCommands) -> namespaceCommands.forEach(command -> {
+            for (String type : typesOf(command.getType())) {
+                for (String alias : command.getAliases()) {
+                    index.putIfAbsent(new Key(namespace, alias.toLowerCase(), type), command);
+                }
+            }
+        }));
+        return new AliasIndex(Collections.unmodifiableMap(index));
+    }
+
+    private static String[] typesOf(String commandType) {
+        if (commandType.equalsIgnoreCase(ANY_TYPE)) {
+            return new String[]{ANY_TYPE};
+        }
+        return commandType.toLowerCase().split("\\|");
+    }
+
+    /**
+     * This will return the command for the alias in a namespace that can run for the type of context.
+     *
+     * @param namespace - The namespace of the command.
+     * @param alias     - The alias of the command, not case sensitive.
+     * @param type      - The type of the context e.g. Discord.
+     * @return Optional
+     */
+    Optional<ICommand> find(String namespace, String alias, String type) {
+        String lowerAlias = alias.toLowerCase();
+        ICommand command = index.get(new Key(namespace, lowerAlias, type.toLowerCase()));
+        if (command == null) {
+            command = index.get(new Key(namespace, lowerAlias, ANY_TYPE));
+        }
+        return Optional.ofNullable(command);
+    }
+
+    private static final class Key {
+        private final String namespace;
+        private final String alias;
+        private final String type;
+        private final int hash;
+
+        private Key(String namespace, String alias, String type) {
+            this.namespace = namespace;
+            this.alias = alias;
+            this.type = type;
+            this.hash = Objects.hash(namespace, alias, type);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return namespace.equals(key.namespace) && alias.equals(key.alias) && type.equals(key.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
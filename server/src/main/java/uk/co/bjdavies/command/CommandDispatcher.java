@@ -36,6 +36,22 @@ public class CommandDispatcher implements ICommandDispatcher {
 
     private final Map<IPlugin, List<ICommandMiddleware>> middlewareList;
 
+    /**
+     * This is an immutable copy of the commands that is read without the lock, it is rebuilt and swapped in whenever
+     * the commands change.
+     */
+    private volatile Map<String, List<ICommand>> commandsSnapshot = Collections.emptyMap();
+
+    /**
+     * This is the alias lookup table for the commands, it is rebuilt and swapped in whenever the commands change.
+     */
+    private volatile AliasIndex aliasIndex = AliasIndex.EMPTY;
+
+    /**
+     * This is the prefix tree of the namespaces, it is rebuilt and swapped in whenever the namespaces change.
+     */
+    private volatile NamespaceTrie namespaceTrie = NamespaceTrie.EMPTY;
+
     /**
      * This will initialize the commands list to an ArrayList.
      */
@@ -51,7 +67,7 @@ public class CommandDispatcher implements ICommandDispatcher {
      *
      * @param command - The command you wish to add.
      */
-    public void addCommand(String namespace, ICommand command) {
+    public synchronized void addCommand(String namespace, ICommand command) {
         if (!commands.containsKey(namespace)) {
             log.info("Namespace: " + namespace + " has not been created yet, creating now...");
             commands.put(namespace, new ArrayList<>());
@@ -61,29 +77,45 @@ public class CommandDispatcher implements ICommandDispatcher {
             log.warn("Command: " + command.getAliases()[0] + ", already exists inside namespace: " + namespace);
         } else {
             namespaceCommands.add(command);
+            rebuildIndex();
         }
     }
 
     @Override
-    public void addNamespace(String namespace, List<ICommand> commandsToAdd) {
+    public synchronized void addNamespace(String namespace, List<ICommand> commandsToAdd) {
         if (commands.containsKey(namespace)) {
             log.info("Namespace: " + namespace + " has already been created.");
             log.warn("Plugin with this namespace already exists please consider changing it.");
             commands.get(namespace).addAll(commandsToAdd);
         } else {
-            commands.put(namespace, commandsToAdd);
+            // it is copied so the caller changing their list doesn't change the dispatcher
+            commands.put(namespace, new ArrayList<>(commandsToAdd));
         }
+        rebuildIndex();
     }
 
     @Override
-    public void removeNamespace(String namespace) {
+    public synchronized void removeNamespace(String namespace) {
         if (!commands.containsKey(namespace)) {
             log.info("Namespace: " + namespace + " has not been created so you cannot remove it.");
         } else {
             commands.remove(namespace);
+            rebuildIndex();
         }
     }
 
+    /**
+     * This will rebuild the snapshot of the commands, the alias lookup table and namespace tree from the current
+     * commands, must be called while holding the lock.
+     */
+    private void rebuildIndex() {
+        Map<String, List<ICommand>> snapshot = new HashMap<>();
+        commands.forEach((namespace, namespaceCommands) -> snapshot.put(namespace, List.copyOf(namespaceCommands)));
+        commandsSnapshot = Collections.unmodifiableMap(snapshot);
+        aliasIndex = AliasIndex.build(commands);
+        namespaceTrie = NamespaceTrie.build(commands.keySet());
+    }
+
     private boolean commandExists(List<ICommand> namespaceCommands, ICommand command) {
         boolean aliases = checkAliases(namespaceCommands, command);
         return !aliases && !namespaceCommands.contains(command);
@@ -113,7 +145,7 @@ public class CommandDispatcher implements ICommandDispatcher {
      *
      * @param command - The command you wish to remove.
      */
-    public void removeCommand(String namespace, ICommand command) {
+    public synchronized void removeCommand(String namespace, ICommand command) {
         if (!commands.containsKey(namespace)) {
             log.error("Namespace: " + namespace + " has not been created yet, cannot remove command");
             return;
@@ -123,31 +155,29 @@ public class CommandDispatcher implements ICommandDispatcher {
             log.error("Command is not part of the dispatcher so it cannot be removed.");
         } else {
             namespaceCommands.remove(command);
+            rebuildIndex();
         }
 
     }
 
     public Flux<ICommand> getCommandsFromNamespace(String namespace) {
-        if (!commands.containsKey(namespace)) {
+        List<ICommand> namespaceCommands = commandsSnapshot.get(namespace);
+        if (namespaceCommands == null) {
             log.error("Namespace: " + namespace + " has not been created yet, cannot get namepsace");
             return Flux.empty();
         }
-        return Flux.create(sink -> {
-            commands.get(namespace).forEach(sink::next);
-            sink.complete();
-        });
+        return Flux.fromIterable(namespaceCommands);
     }
 
     @Override
     public Flux<String> getRegisteredNamespaces() {
-        return Flux.create(sink -> {
-            commands.keySet().forEach(sink::next);
-            sink.complete();
-        });
+        return Flux.fromIterable(commandsSnapshot.keySet());
     }
 
     /**
-     * This will try and return a command based on a name and type of command.
+     * This will try and return a command based on a name and type of command, the alias and the type have to match
+     * exactly. Messages are matched by {@link #execute(MessageParser, String, IApplication)} which ignores case and
+     * allows commands of type "All".
      *
      * @param alias - The alias of command.
      * @param type  - The type of command.
@@ -205,10 +235,8 @@ public class CommandDispatcher implements ICommandDispatcher {
             AtomicBoolean hasSentMessage = new AtomicBoolean(false);
             AtomicBoolean hasFoundOne = new AtomicBoolean(false);
 
-            getCommandsFromNamespace(namespace)
-                    .filter(e -> checkType(e.getType(), commandContext.getType()))
-                    .filter(e -> Arrays.stream(e.getAliases())
-                            .anyMatch(alias -> alias.toLowerCase().equals(commandName.toLowerCase())))
+            Mono.justOrEmpty(aliasIndex.find(namespace, commandName, commandContext.getType()))
+                    .flux()
                     .doOnError(e -> log.error("Error in the command dispatcher.", e))
                     .doOnComplete(() -> {
                         if (!hasFoundOne.get()) {
@@ -296,7 +324,7 @@ public class CommandDispatcher implements ICommandDispatcher {
 
     private String getNamespaceForCommand(ICommand c) {
         AtomicReference<String> namespace = new AtomicReference<>("");
-        this.commands.forEach((key, value) -> {
+        commandsSnapshot.forEach((key, value) -> {
             if (!checkAliases(value, c) && namespace.get().equals("")) {
                 namespace.set(key);
             }
@@ -304,16 +332,14 @@ public class CommandDispatcher implements ICommandDispatcher {
         return namespace.get();
     }
 
+    /**
+     * This will return the longest registered namespace that the command name starts with.
+     *
+     * @param commandName - The command name without the command prefix.
+     * @return String - The namespace or "" if none match.
+     */
     public String getNamespaceFromCommandName(String commandName) {
-        AtomicReference<String> namespace = new AtomicReference<>("");
-        log.info(commandName);
-        this.commands.keySet().forEach(i -> {
-            if (commandName.startsWith(i)) {
-                namespace.set(i);
-            }
-        });
-
-        return namespace.get();
+        return namespaceTrie.longestPrefixOf(commandName);
     }
 
     @Override
@@ -346,35 +372,6 @@ public class CommandDispatcher implements ICommandDispatcher {
     }
 
 
-    /**
-     * This will check of the command against the command context.
-     *
-     * @param commandType - The type of the command.
-     * @param contextType - The command context.
-     * @return boolean
-     */
-    private boolean checkType(String commandType, String contextType) {
-        if (commandType.equals("All")) {
-            return true;
-        } else if (commandType.toLowerCase().equals(contextType.toLowerCase())) {
-            return true;
-        } else if (commandType.contains("|")) {
-            String[] types = commandType.split("|");
-            boolean foundType = false;
-
-            for (String type : types) {
-                if (type.toLowerCase().equals(contextType.toLowerCase())) {
-                    foundType = true;
-                }
-            }
-
-            return foundType;
-        }
-
-
-        return false;
-    }
-
     /**
      * This will return the list of commands in the dispatcher.
      *
@@ -395,7 +392,7 @@ public class CommandDispatcher implements ICommandDispatcher {
 
         AtomicReference<Flux<ICommand>> commandFlux = new AtomicReference<>(Flux.empty());
 
-        commands.keySet().forEach(k -> {
+        commandsSnapshot.keySet().forEach(k -> {
             commandFlux.set(commandFlux.get().concatWith(getCommands(k, type)));
         });
 
@@ -0,0 +1,70 @@
+package uk.co.bjdavies.command;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This is an immutable prefix tree of the registered namespaces.
+ * <p>
+ * It resolves the namespace of a command name by walking the name once and returning the longest namespace it
+ * starts with, so the answer doesn't depend on the order the namespaces were registered in.
+ * </p>
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+final class NamespaceTrie {
+
+    static final NamespaceTrie EMPTY = new NamespaceTrie(new Node());
+
+    private final Node root;
+
+    private NamespaceTrie(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * This will build a new trie from the namespaces.
+     *
+     * @param namespaces - The registered namespaces.
+     * @return NamespaceTrie
+     */
+    static NamespaceTrie build(Collection<String> namespaces) {
+        Node root = new Node();
+        for (String namespace : namespaces) {
+            Node node = root;
+            for (int i = 0; i < namespace.length(); i++) {
+                node = node.children.computeIfAbsent(namespace.charAt(i), c -> new Node());
+            }
+            node.namespace = namespace;
+        }
+        return new NamespaceTrie(root);
+    }
+
+    /**
+     * This will return the longest registered namespace that the command name starts with.
+     *
+     * @param commandName - The command name e.g. "bbhelp".
+     * @return String - The namespace or "" if none match.
+     */
+    String longestPrefixOf(String commandName) {
+        Node node = root;
+        String longest = root.namespace == null ? "" : root.namespace;
+        for (int i = 0; i < commandName.length(); i++) {
+            node = node.children.get(commandName.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node.namespace != null) {
+                longest = node.namespace;
+            }
+        }
+        return longest;
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private String namespace;
+    }
+}
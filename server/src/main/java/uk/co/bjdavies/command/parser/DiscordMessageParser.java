@@ -7,8 +7,6 @@ import uk.co.bjdavies.command.CommandContext;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * @author ben.davies99@outlook.com (Ben Davies)
@@ -33,105 +31,130 @@ public class DiscordMessageParser implements MessageParser {
 
     /**
      * This will parse the string inputted the by the user.
+     * <p>
+     * The message is read once from left to right, the command name is everything up to the first space, parameters
+     * are {@code " -name"} or {@code " -name=value"} / {@code " -name=\"value\""} and whatever is left over is the value.
+     * </p>
      *
      * @param message - The raw inputted message.
      * @return CommandContext
      */
     @Override
     public ICommandContext parseString(String message) {
-        return new CommandContext(parseCommandName(message).toLowerCase(), parseParams(message), parseValue(message), "Discord", this.message);
+        int length = message.length();
+        int indexOfFirstSpace = message.indexOf(' ');
+        String commandName = indexOfFirstSpace == -1 ? message : message.substring(0, indexOfFirstSpace).trim();
+
+        Map<String, String> params = new HashMap<>();
+        StringBuilder value = new StringBuilder();
+        int segmentStart = indexOfFirstSpace == -1 ? length : indexOfFirstSpace;
+        int i = segmentStart;
+        while (i < length - 1) {
+            int end = message.charAt(i) == ' ' && message.charAt(i + 1) == '-'
+                    ? parseParameter(message, i, params)
+                    : -1;
+            if (end == -1) {
+                i++;
+            } else {
+                value.append(message, segmentStart, i);
+                segmentStart = end;
+                i = end;
+            }
+        }
+        value.append(message, segmentStart, length);
+
+        return new CommandContext(commandName.toLowerCase(), params, value.toString().trim(), "Discord", this.message);
     }
 
 
     /**
-     * This will parse the value of the command if there is one.
+     * This will parse a parameter starting at the space before its dash and add it to the parameters.
      *
      * @param message - The raw inputted message.
-     * @return String
+     * @param start   - The index of the space before the dash.
+     * @param params  - The parameters parsed so far.
+     * @return int - The index after the parameter or -1 if there is no parameter here.
      */
-    private String parseValue(String message) {
-        Matcher matcher = getParameterMatcher(message);
-        message = message.replace(parseCommandName(message), "");
-        while (matcher.find()) {
-            message = message.replace(matcher.group().trim(), "");
+    private int parseParameter(String message, int start, Map<String, String> params) {
+        int length = message.length();
+        int nameStart = start + 2;
+        int nameEnd = nameStart;
+        while (nameEnd < length && isNameChar(message.charAt(nameEnd))) {
+            nameEnd++;
         }
-
-
-        matcher = getRawParameters(message);
-        while (matcher.find()) {
-            message = message.replace(matcher.group().trim(), "");
+        if (nameEnd == nameStart) {
+            return -1;
+        }
+        String name = message.substring(nameStart, nameEnd);
+
+        if (nameEnd < length && message.charAt(nameEnd) == '=') {
+            int valueStart = nameEnd + 1;
+            if (valueStart < length && message.charAt(valueStart) == '"') {
+                int valueEnd = scanValue(message, valueStart + 1);
+                if (valueEnd > valueStart + 1 && valueEnd < length && message.charAt(valueEnd) == '"') {
+                    params.put(name, message.substring(valueStart + 1, valueEnd));
+                    return valueEnd + 1;
+                }
+            } else {
+                int valueEnd = scanValue(message, valueStart);
+                if (valueEnd > valueStart) {
+                    params.put(name, message.substring(valueStart, valueEnd));
+                    return valueEnd;
+                }
+            }
         }
 
-
-        message = message.trim();
-        return message;
+        params.put(name, "");
+        return nameEnd;
     }
 
 
     /**
-     * This will parse the command name from the message.
+     * This will return the index of the first character from the start that cannot be part of a parameter value.
      *
      * @param message - The raw inputted message.
-     * @return String
+     * @param start   - The index to start from.
+     * @return int
      */
-    private String parseCommandName(String message) {
-        int indexOfFirstSpace = message.indexOf(" ");
-
-        if (indexOfFirstSpace == -1) {
-            return message;
-        } else {
-            return message.substring(0, indexOfFirstSpace).trim();
+    private int scanValue(String message, int start) {
+        int end = start;
+        while (end < message.length() && isValueChar(message.charAt(end))) {
+            end++;
         }
+        return end;
     }
 
 
     /**
-     * This will parse the parameters from the inputted message
+     * This checks if the character can be used in a parameter's name.
      *
-     * @param message - The raw inputted message.
-     * @return Map(String, String)
+     * @param c - The character to check.
+     * @return boolean
      */
-    private Map<String, String> parseParams(String message) {
-        Map<String, String> params = new HashMap<>();
-        Matcher matcher = getParameterMatcher(message);
-        String copy = new String(message.getBytes());
-        while (matcher.find()) {
-            String name = matcher.group(1).trim();
-            String value = matcher.group(2).replaceAll("\"", "").trim();
-            params.put(name, value);
-            copy = copy.replace(matcher.group().trim(), "");
-        }
-
-        matcher = getRawParameters(copy);
-
-        while (matcher.find()) {
-            String name = matcher.group(1).trim();
-            params.put(name, "");
-        }
-
-        return params;
+    private static boolean isNameChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
     }
 
 
     /**
-     * This will parse the parameters in the message and return a Matcher.
+     * This checks if the character can be used in a parameter's value.
      *
-     * @param message - The raw inputted message.
-     * @return Matcher
+     * @param c - The character to check.
+     * @return boolean
      */
-    private Matcher getParameterMatcher(String message) {
-        String parameterRegex = " -([a-zA-Z0-9]+)=(([a-zA-Z0-9:/?=&_.\\-]+)|(\"([a-zA-Z0-9:/?=&_.\\-]+)\"))";
-
-        Pattern pattern = Pattern.compile(parameterRegex);
-
-        return pattern.matcher(message);
-    }
-
-    private Matcher getRawParameters(String message) {
-        String parameterRegex = " -([a-zA-Z0-9]+)";
-
-        Pattern pattern = Pattern.compile(parameterRegex);
-
-        return pattern.matcher(message);
+    private static boolean isValueChar(char c) {
+        switch (c) {
+            case ':':
+            case '/':
+            case '?':
+            case '=':
+            case '&':
+            case '_':
+            case '.':
+            case '-':
+                return true;
+            default:
+                return isNameChar(c);
+        }
     }
 }
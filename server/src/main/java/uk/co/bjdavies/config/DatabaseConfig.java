@@ -14,6 +14,9 @@ public class DatabaseConfig implements IDatabaseConfig {
     private String password;
     private String hostname;
     private String port;
+    private boolean modelCache = true;
+    private int writeBehindMaxPending = 500;
+    private long writeBehindFlushInterval = 1000;
 
     @Override
     public String getType() {
@@ -44,4 +47,19 @@ public class DatabaseConfig implements IDatabaseConfig {
     public String getDatabase() {
         return database;
     }
+
+    @Override
+    public boolean isModelCacheEnabled() {
+        return modelCache;
+    }
+
+    @Override
+    public int getWriteBehindMaxPending() {
+        return writeBehindMaxPending;
+    }
+
+    @Override
+    public long getWriteBehindFlushInterval() {
+        return writeBehindFlushInterval;
+    }
 }
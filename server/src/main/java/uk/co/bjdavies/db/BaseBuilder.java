@@ -2,12 +2,24 @@ package uk.co.bjdavies.db;
 
 import uk.co.bjdavies.api.db.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+
 /**
  * @author ben.davies99@outlook.com (Ben Davies)
  * @since 1.0.0
  */
 public abstract class BaseBuilder implements IBaseBuilder {
 
+    /**
+     * This is the most values an IN list is bound with in one query, SQLite can bind 999 values in older versions.
+     */
+    protected static final int MAX_IN_VALUES = 500;
+
     protected final String primaryKey;
     protected final String tableName;
     protected final IConnection connection;
@@ -59,4 +71,110 @@ public abstract class BaseBuilder implements IBaseBuilder {
         this.whereStatement.add(statement1);
         return this;
     }
+
+    @Override
+    public IBaseBuilder whereIn(String key, Collection<?> values) {
+        return this.where(new WhereStatement(key, values, Comparator.IN));
+    }
+
+    @Override
+    public IBaseBuilder whereNotIn(String key, Collection<?> values) {
+        return this.where(new WhereStatement(key, values, Comparator.NOT_IN));
+    }
+
+    @Override
+    public IBaseBuilder between(String key, Object low, Object high) {
+        return this.where(new WhereStatement(key, Arrays.asList(low, high), Comparator.BETWEEN));
+    }
+
+    @Override
+    public IBaseBuilder whereNull(String key) {
+        return this.where(new WhereStatement(key, Comparator.IS_NULL));
+    }
+
+    @Override
+    public IBaseBuilder whereNotNull(String key) {
+        return this.where(new WhereStatement(key, Comparator.IS_NOT_NULL));
+    }
+
+    /**
+     * This checks whether the where has an IN list with more values than can be bound at once, anywhere in it, such a
+     * where is ran once for each chunk of the values with {@link #eachChunk(Callable)}.
+     *
+     * @return boolean
+     * @throws IllegalStateException if a NOT IN list is too long or more than one IN list is, these can't be chunked.
+     */
+    protected boolean isChunked() {
+        return chunkedIn() != null;
+    }
+
+    /**
+     * This checks whether a row can be returned by more than one chunk, which is when the where has an OR, as a row
+     * matching the other side of the OR matches in every chunk. Without one the IN list has to match for every row
+     * and each value is only in one chunk.
+     *
+     * @return boolean
+     */
+    protected boolean chunksOverlap() {
+        return hasOr(whereStatement);
+    }
+
+    private static boolean hasOr(WhereStatement statement) {
+        if (statement.getOperator() == Operator.OR) {
+            return true;
+        }
+        return statement.getGroup().stream().anyMatch(BaseBuilder::hasOr);
+    }
+
+    private WhereStatement chunkedIn() {
+        if (whereStatement == null) {
+            return null;
+        }
+        List<WhereStatement> chunked = new ArrayList<>();
+        findChunkedIn(whereStatement, chunked);
+        if (chunked.size() > 1) {
+            throw new IllegalStateException("Only one IN list can have more than " + MAX_IN_VALUES + " values, " +
+                    "the query on " + tableName + " has " + chunked.size() + ".");
+        }
+        return chunked.isEmpty() ? null : chunked.get(0);
+    }
+
+    private void findChunkedIn(WhereStatement statement, List<WhereStatement> chunked) {
+        if (statement.getValues().size() > MAX_IN_VALUES) {
+            if (statement.getComparator() == Comparator.NOT_IN) {
+                throw new IllegalStateException("A NOT IN list can't have more than " + MAX_IN_VALUES + " values, " +
+                        statement.getKey() + " on " + tableName + " has " + statement.getValues().size() + ".");
+            }
+            if (statement.getComparator() == Comparator.IN) {
+                chunked.add(statement);
+            }
+        }
+        statement.getGroup().forEach(ws -> findChunkedIn(ws, chunked));
+    }
+
+    /**
+     * This will do the work once for each chunk of the IN list, with the list set to only that chunk and the rest of
+     * the where left as it is. The values are deduplicated first so a value repeated across chunks doesn't match its
+     * rows more than once, though with {@link #chunksOverlap()} the same row can still come from more than one chunk.
+     *
+     * @param work - The work to do for each chunk.
+     * @param <R>  - The result of the work.
+     * @return List - The result for each chunk.
+     * @throws Exception if the work fails.
+     */
+    protected <R> List<R> eachChunk(Callable<R> work) throws Exception {
+        WhereStatement in = chunkedIn();
+        List<String> original = in.getValues();
+        List<String> values = new ArrayList<>(new LinkedHashSet<>(original));
+        List<R> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < values.size(); i += MAX_IN_VALUES) {
+                in.setValues(values.subList(i, Math.min(values.size(), i + MAX_IN_VALUES)));
+                results.add(work.call());
+            }
+        } finally {
+            in.setValues(original);
+        }
+        return results;
+    }
 }
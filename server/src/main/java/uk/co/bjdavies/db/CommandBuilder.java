@@ -4,8 +4,13 @@ import lombok.SneakyThrows;
 import uk.co.bjdavies.api.db.Comparator;
 import uk.co.bjdavies.api.db.ICommandBuilder;
 import uk.co.bjdavies.api.db.IConnection;
+import uk.co.bjdavies.api.db.ISQLCommand;
 import uk.co.bjdavies.api.db.WhereStatement;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -46,12 +51,53 @@ public abstract class CommandBuilder extends BaseBuilder implements ICommandBuil
         return (ICommandBuilder) super.or(statement);
     }
 
+    @Override
+    public ICommandBuilder whereIn(String key, Collection<?> values) {
+        return (ICommandBuilder) super.whereIn(key, values);
+    }
+
+    @Override
+    public ICommandBuilder whereNotIn(String key, Collection<?> values) {
+        return (ICommandBuilder) super.whereNotIn(key, values);
+    }
+
+    @Override
+    public ICommandBuilder between(String key, Object low, Object high) {
+        return (ICommandBuilder) super.between(key, low, high);
+    }
+
+    @Override
+    public ICommandBuilder whereNull(String key) {
+        return (ICommandBuilder) super.whereNull(key);
+    }
+
+    @Override
+    public ICommandBuilder whereNotNull(String key) {
+        return (ICommandBuilder) super.whereNotNull(key);
+    }
+
     @SneakyThrows
     @Override
     public boolean insert(Map<String, Object> insertValues) {
         type = CommandType.INSERT;
         this.commandValues = insertValues;
-        return (boolean) connection.executeCommand(this);
+        try {
+            return (boolean) connection.executeCommand(this);
+        } finally {
+            DB.tableChanged(tableName);
+        }
+    }
+
+    @SneakyThrows
+    @Override
+    public long insertGetId(Map<String, Object> insertValues) {
+        type = CommandType.INSERT;
+        this.commandValues = insertValues;
+        try {
+            return connection.executeInsert(this);
+        } finally {
+            DB.tableChanged(tableName);
+        }
     }
 
     @SneakyThrows
@@ -59,6 +105,23 @@ public abstract class CommandBuilder extends BaseBuilder implements ICommandBuil
     public boolean update(Map<String, Object> updateValues) {
         this.commandValues = updateValues;
         type = CommandType.UPDATE;
+        try {
+            return executeCommand();
+        } finally {
+            DB.tableChanged(tableName);
+        }
+    }
+
+    /**
+     * This will run the command, once for each chunk if its where is an IN list too long to bind at once.
+     *
+     * @return boolean - true if any row was changed.
+     * @throws Exception if the command fails.
+     */
+    private boolean executeCommand() throws Exception {
+        if (isChunked()) {
+            return eachChunk(() -> (boolean) connection.executeCommand(this)).contains(true);
+        }
         return (boolean) connection.executeCommand(this);
     }
 
@@ -66,7 +129,54 @@ public abstract class CommandBuilder extends BaseBuilder implements ICommandBuil
     @Override
     public boolean delete() {
         type = CommandType.DELETE;
-        return (boolean) connection.executeCommand(this);
+        try {
+            return executeCommand();
+        } finally {
+            DB.tableChanged(tableName);
+        }
+    }
+
+    @SneakyThrows
+    @Override
+    public int insertMany(List<Map<String, Object>> rows) {
+        type = CommandType.INSERT;
+        List<ISQLCommand> sqlCommands = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            this.commandValues = row;
+            sqlCommands.add(buildCommand());
+        }
+        try {
+            return connection.executeBatch(sqlCommands);
+        } finally {
+            DB.tableChanged(tableName);
+        }
+    }
+
+    @SneakyThrows
+    @Override
+    public int updateMany(String keyColumn, List<Map<String, Object>> rows) {
+        type = CommandType.UPDATE;
+        WhereStatement previousWhere = this.whereStatement;
+        List<ISQLCommand> sqlCommands = new ArrayList<>(rows.size());
+        try {
+            for (Map<String, Object> row : rows) {
+                if (!row.containsKey(keyColumn)) {
+                    throw new IllegalArgumentException("Every row must have a value for " + keyColumn);
+                }
+                Map<String, Object> values = new HashMap<>(row);
+                Object key = values.remove(keyColumn);
+                this.whereStatement = new WhereStatement(keyColumn, key);
+                this.commandValues = values;
+                sqlCommands.add(buildCommand());
+            }
+        } finally {
+            this.whereStatement = previousWhere;
+        }
+        try {
+            return connection.executeBatch(sqlCommands);
+        } finally {
+            DB.tableChanged(tableName);
+        }
     }
 
     protected enum CommandType {
@@ -0,0 +1,165 @@
+package uk.co.bjdavies.db;
+
+import lombok.extern.log4j.Log4j2;
+import uk.co.bjdavies.api.db.IDBRecord;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * This is a row read from the database, it holds its values in an array in the order of a {@link RowSchema} that is
+ * shared with the rest of the rows from the same query.
+ * <p>
+ * The values can be read by column name or by index and the typed getters read numbers as numbers rather than going
+ * through a String. {@link #getData()} makes a map of the row each time it is called.
+ * </p>
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+@Log4j2
+public final class CompactRecord implements IDBRecord {
+
+    private RowSchema schema;
+    private Object[] values;
+
+    public CompactRecord(RowSchema schema, Object[] values) {
+        if (schema.size() != values.length) {
+            throw new IllegalArgumentException("The row has " + values.length + " values but the schema has " +
+                    schema.size() + " columns.");
+        }
+        this.schema = schema;
+        this.values = values;
+    }
+
+    /**
+     * This will read the row the result set is on.
+     *
+     * @param resultSet - The result set.
+     * @param schema    - The schema of the result set.
+     * @return CompactRecord
+     * @throws SQLException if the row cannot be read.
+     */
+    public static CompactRecord read(ResultSet resultSet, RowSchema schema) throws SQLException {
+        Object[] values = new Object[schema.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = resultSet.getObject(i + 1);
+        }
+        return new CompactRecord(schema, values);
+    }
+
+    public RowSchema getSchema() {
+        return schema;
+    }
+
+    Object[] values() {
+        return values;
+    }
+
+    /**
+     * This will return the value of the column at the index.
+     *
+     * @param index - The index of the column in the schema.
+     * @return Object
+     */
+    public Object get(int index) {
+        return values[index];
+    }
+
+    public String getString(int index) {
+        return String.valueOf(values[index]);
+    }
+
+    public int getInt(int index) {
+        Object value = values[index];
+        return value instanceof Number ? ((Number) value).intValue() : Integer.parseInt(String.valueOf(value));
+    }
+
+    public long getLong(int index) {
+        Object value = values[index];
+        return value instanceof Number ? ((Number) value).longValue() : Long.parseLong(String.valueOf(value));
+    }
+
+    public float getFloat(int index) {
+        Object value = values[index];
+        return value instanceof Number ? ((Number) value).floatValue() : Float.parseFloat(String.valueOf(value));
+    }
+
+    @Override
+    public Object get(String key) {
+        int index = schema.indexOf(key);
+        if (index == -1) {
+            log.error("Column: " + key + " does not exist in this table.");
+            return null;
+        }
+        return values[index];
+    }
+
+    @Override
+    public Map<String, Object> getData() {
+        Map<String, Object> data = new LinkedHashMap<>(values.length * 2);
+        for (int i = 0; i < values.length; i++) {
+            data.put(schema.getColumnName(i), values[i]);
+        }
+        return data;
+    }
+
+    @Override
+    public void setData(Map<String, Object> data) {
+        this.schema = new RowSchema(data.keySet().toArray(new String[0]));
+        this.values = data.values().toArray();
+    }
+
+    @Override
+    public String getString(String key) {
+        return String.valueOf(get(key));
+    }
+
+    @Override
+    public int getInt(String key) {
+        return getInt(indexOrFail(key));
+    }
+
+    @Override
+    public float getFloat(String key) {
+        return getFloat(indexOrFail(key));
+    }
+
+    @Override
+    public String toJsonString(String... keysToHide) {
+        StringBuilder json = new StringBuilder(values.length * 16);
+        try {
+            writeJson(json, keysToHide);
+        } catch (IOException e) {
+            // a StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+        return json.toString();
+    }
+
+    @Override
+    public void writeJson(Appendable out, String... keysToHide) throws IOException {
+        List<String> columnNames = schema.getColumnNames();
+        JsonWriter.writeRow(out, columnNames, values, JsonWriter.hidden(columnNames, keysToHide));
+    }
+
+    @Override
+    public boolean equals(String key, String value) {
+        int index = schema.indexOf(key);
+        return index != -1 && Objects.equals(values[index], value);
+    }
+
+    private int indexOrFail(String key) {
+        int index = schema.indexOf(key);
+        if (index == -1) {
+            throw new IllegalArgumentException("Column: " + key + " does not exist in this table.");
+        }
+        return index;
+    }
+}
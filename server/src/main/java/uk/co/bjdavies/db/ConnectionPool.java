@@ -0,0 +1,307 @@
+package uk.co.bjdavies.db;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This is a pool of a fixed number of reader connections and a single writer connection.
+ * <p>
+ * Any number of threads can read at once, up to the number of readers, while writes are serialized through the one
+ * writer so its autocommit and transaction state is only ever touched by one thread at a time. This is the shape
+ * SQLite wants when it is in WAL mode. The writer lock is reentrant so a write can be made inside another one.
+ * </p>
+ * <p>
+ * Each connection has its own cache of prepared statements, see {@link #prepare(Connection, String)}.
+ * </p>
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+@Log4j2
+public class ConnectionPool implements AutoCloseable {
+
+    /**
+     * This is the number of prepared statements kept for each connection.
+     */
+    private static final int STATEMENTS_PER_CONNECTION = 64;
+
+    private final BlockingQueue<Connection> readers;
+
+    private final List<Connection> allReaders;
+
+    private final Connection writer;
+
+    private final Map<Connection, StatementCache> statementCaches;
+
+    private final ReentrantLock writeLock = new ReentrantLock(true);
+
+    private final long acquireTimeoutMillis;
+
+    /**
+     * These are the permits for readers borrowed with {@link #borrowReader()}, there is one less than there are
+     * readers so cursors and streams that are left open can never take the reader {@link #read(SQLWork)} needs.
+     */
+    private final Semaphore borrowed;
+
+    private volatile boolean closed;
+
+    /**
+     * This will open all the connections in the pool.
+     *
+     * @param opener               - Opens a new connection, it's told if the connection is the writer.
+     * @param readerCount          - The number of reader connections.
+     * @param acquireTimeoutMillis - How long to wait for a reader before giving up.
+     * @throws SQLException if a connection cannot be opened.
+     */
+    public ConnectionPool(ConnectionOpener opener, int readerCount, long acquireTimeoutMillis) throws SQLException {
+        if (readerCount < 1) {
+            throw new IllegalArgumentException("The pool needs at least one reader.");
+        }
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.writer = opener.open(true);
+
+        List<Connection> opened = new ArrayList<>(readerCount);
+        try {
+            for (int i = 0; i < readerCount; i++) {
+                opened.add(opener.open(false));
+            }
+        } catch (SQLException e) {
+            opened.forEach(this::closeQuietly);
+            closeQuietly(writer);
+            throw e;
+        }
+        this.allReaders = Collections.unmodifiableList(opened);
+        this.readers = new ArrayBlockingQueue<>(readerCount, false, opened);
+        this.borrowed = new Semaphore(Math.max(1, readerCount - 1), true);
+
+        Map<Connection, StatementCache> caches = new IdentityHashMap<>();
+        caches.put(writer, new StatementCache(writer, STATEMENTS_PER_CONNECTION));
+        opened.forEach(reader -> caches.put(reader, new StatementCache(reader, STATEMENTS_PER_CONNECTION)));
+        this.statementCaches = Collections.unmodifiableMap(caches);
+    }
+
+    /**
+     * This will return a prepared statement for the SQL from the connection's statement cache, the statement is
+     * reused so it must not be closed and any result set from it must be closed before it is prepared again.
+     *
+     * @param connection - A connection from this pool that the current thread is using.
+     * @param sql        - The SQL of the statement.
+     * @return PreparedStatement
+     * @throws SQLException if the statement cannot be prepared.
+     */
+    public PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        return statementCache(connection).prepare(sql);
+    }
+
+    /**
+     * This will return a prepared statement for the query from the connection's statement cache, the statement is lent
+     * to the caller until {@link #release(Connection, PreparedStatement)} is called so a query with the same SQL made
+     * before then, e.g. while the rows are being mapped, gets a statement of its own.
+     *
+     * @param connection - A connection from this pool that the current thread is using.
+     * @param sql        - The SQL of the query.
+     * @return PreparedStatement - It must not be closed, give it back instead.
+     * @throws SQLException if the statement cannot be prepared.
+     */
+    public PreparedStatement prepareQuery(Connection connection, String sql) throws SQLException {
+        return statementCache(connection).lend(sql);
+    }
+
+    /**
+     * This will give back a statement from {@link #prepareQuery(Connection, String)} once its result set is closed.
+     *
+     * @param connection - The connection it was prepared on.
+     * @param statement  - The statement.
+     */
+    public void release(Connection connection, PreparedStatement statement) {
+        statementCache(connection).release(statement);
+    }
+
+    /**
+     * This will borrow a reader for the work and give it back once it's done, if the current thread is already
+     * writing the work is done on the writer instead so it can see what has been written but not committed yet.
+     *
+     * @param work - The work to do with the reader, it must not hold onto the connection.
+     * @param <R>  - The result type.
+     * @return R
+     * @throws SQLException if a reader cannot be borrowed or the work fails.
+     */
+    public <R> R read(SQLWork<R> work) throws SQLException {
+        if (writeLock.isHeldByCurrentThread()) {
+            return work.apply(writer);
+        }
+        Connection connection = takeReader();
+        try {
+            return work.apply(connection);
+        } finally {
+            readers.offer(connection);
+        }
+    }
+
+    /**
+     * This will borrow a reader until {@link #returnReader(Connection)} is called, use this when the reader has to
+     * outlive a single call e.g. while streaming a result set. At most one less than the number of readers can be
+     * borrowed at once so there is always a reader left for {@link #read(SQLWork)}. Unlike it this never gives the
+     * writer, check {@link #isWriting()} first if the rows written by the current thread have to be seen.
+     *
+     * @return Connection
+     * @throws SQLException if a reader cannot be borrowed in time.
+     */
+    public Connection borrowReader() throws SQLException {
+        ensureOpen();
+        try {
+            if (!borrowed.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw timedOut();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        try {
+            return takeReader();
+        } catch (SQLException | RuntimeException e) {
+            borrowed.release();
+            throw e;
+        }
+    }
+
+    /**
+     * This will give a borrowed reader back to the pool.
+     *
+     * @param connection - The reader from {@link #borrowReader()}.
+     */
+    public void returnReader(Connection connection) {
+        readers.offer(connection);
+        borrowed.release();
+    }
+
+    private Connection takeReader() throws SQLException {
+        ensureOpen();
+        try {
+            Connection connection = readers.poll(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+            if (connection == null) {
+                throw timedOut();
+            }
+            return connection;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+    }
+
+    private SQLException timedOut() {
+        return new SQLException("Timed out waiting for a database connection after " + acquireTimeoutMillis + "ms");
+    }
+
+    /**
+     * This will run the work on the writer, waiting for any other write to finish first.
+     *
+     * @param work - The work to do with the writer, it must not hold onto the connection.
+     * @param <R>  - The result type.
+     * @return R
+     * @throws SQLException if the work fails.
+     */
+    public <R> R write(SQLWork<R> work) throws SQLException {
+        ensureOpen();
+        writeLock.lock();
+        try {
+            return work.apply(writer);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * This checks whether the current thread is writing, which is only ever true inside a transaction when it is
+     * asked from outside of {@link #write(SQLWork)}.
+     *
+     * @return boolean
+     */
+    public boolean isWriting() {
+        return writeLock.isHeldByCurrentThread();
+    }
+
+    /**
+     * This will return the writer connection without locking it, anything using it must not change its state.
+     *
+     * @return Connection
+     */
+    public Connection getWriter() {
+        return writer;
+    }
+
+    /**
+     * This is the number of reader connections in the pool.
+     *
+     * @return int
+     */
+    public int getReaderCount() {
+        return allReaders.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        writeLock.lock();
+        try {
+            statementCaches.values().forEach(StatementCache::clear);
+            allReaders.forEach(this::closeQuietly);
+            closeQuietly(writer);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("The connection pool has been closed.");
+        }
+    }
+
+    private StatementCache statementCache(Connection connection) {
+        StatementCache cache = statementCaches.get(connection);
+        if (cache == null) {
+            throw new IllegalArgumentException("The connection does not belong to this pool.");
+        }
+        return cache;
+    }
+
+    private void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.error("Unable to close database connection", e);
+        }
+    }
+
+    /**
+     * This opens a new connection for the pool.
+     */
+    @FunctionalInterface
+    public interface ConnectionOpener {
+        Connection open(boolean writer) throws SQLException;
+    }
+
+    /**
+     * This is some work that is done with a connection from the pool.
+     *
+     * @param <R> - The result type.
+     */
+    @FunctionalInterface
+    public interface SQLWork<R> {
+        R apply(Connection connection) throws SQLException;
+    }
+}
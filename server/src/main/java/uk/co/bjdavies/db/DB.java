@@ -2,17 +2,22 @@ package uk.co.bjdavies.db;
 
 import lombok.SneakyThrows;
 import lombok.extern.log4j.Log4j2;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 import uk.co.bjdavies.api.config.IDatabaseConfig;
 import uk.co.bjdavies.api.db.ICommandBuilder;
 import uk.co.bjdavies.api.db.IConnection;
 import uk.co.bjdavies.api.db.IDBRecord;
 import uk.co.bjdavies.api.db.IQueryBuilder;
+import uk.co.bjdavies.api.db.ITransaction;
 import uk.co.bjdavies.db.Table.TableBuilder;
 
-import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * @author ben.davies99@outlook.com (Ben Davies)
@@ -21,9 +26,22 @@ import java.util.concurrent.Executors;
 @Log4j2
 public class DB {
 
-    private static DB instance;
-    private final ExecutorService service = Executors.newFixedThreadPool(10);
+    private static volatile DB instance;
+
+    /**
+     * These are the tables written to by the transaction open on this thread, null if there isn't one.
+     */
+    private static final ThreadLocal<Set<String>> TRANSACTION_TABLES = new ThreadLocal<>();
+
+    /**
+     * This is where blocking database work from reactive code is ran, so it never blocks the Discord event threads.
+     */
+    private final Scheduler scheduler = Schedulers.newBoundedElastic(8, 1024, "babblebot-db");
     private volatile IConnection connection;
+    private final SchemaRegistry schema;
+    private final ModelCache modelCache;
+    private final InMemoryTables inMemoryTables;
+    private final WriteBehindQueue writeBehind;
 
     private DB(IDatabaseConfig databaseConfig) {
         try {
@@ -31,14 +49,96 @@ public class DB {
         } catch (Exception e) {
             e.printStackTrace();
         }
+        modelCache = new ModelCache(databaseConfig.isModelCacheEnabled());
+        inMemoryTables = new InMemoryTables(connection);
+        schema = new SchemaRegistry(connection);
+        writeBehind = new WriteBehindQueue(scheduler, databaseConfig.getWriteBehindMaxPending(),
+                databaseConfig.getWriteBehindFlushInterval());
+        if (connection != null) {
+            schema.load();
+        }
     }
 
     public static void createTableIfItDoesntExist(TableBuilder tableBuilder) {
-        if (!getInstance().checkIfTableExists(tableBuilder.getTableName())) {
-            getInstance().createTable(tableBuilder);
+        getInstance().schema.ensure(tableBuilder.getTableName(), () -> tableBuilder);
+    }
+
+    /**
+     * This is the registry of the tables that exist, use it to create tables or to invalidate one that has been
+     * changed outside of it.
+     *
+     * @return SchemaRegistry
+     */
+    public static SchemaRegistry schema() {
+        return getInstance().schema;
+    }
+
+    /**
+     * This is the cache of the models annotated with {@link uk.co.bjdavies.api.db.Cached}.
+     *
+     * @return ModelCache
+     */
+    public static ModelCache modelCache() {
+        return getInstance().modelCache;
+    }
+
+    /**
+     * These are the tables of the models annotated with {@link uk.co.bjdavies.api.db.InMemory}.
+     *
+     * @return InMemoryTables
+     */
+    public static InMemoryTables inMemoryTables() {
+        return getInstance().inMemoryTables;
+    }
+
+    /**
+     * These are the deferred saves of models, see {@link uk.co.bjdavies.api.db.WriteBehind}.
+     *
+     * @return WriteBehindQueue
+     */
+    public static WriteBehindQueue writeBehind() {
+        return getInstance().writeBehind;
+    }
+
+    /**
+     * This will write every deferred save that is waiting, it does nothing if the database isn't installed.
+     */
+    public static void flush() {
+        DB db = instance;
+        if (db != null) {
+            db.writeBehind.flush();
+        }
+    }
+
+    /**
+     * This will clear the cached models of the table and read it again if it is in memory after it has been written
+     * to, if a transaction is open on this thread that is done once it has finished.
+     *
+     * @param tableName - The name of the table.
+     */
+    static void tableChanged(String tableName) {
+        Set<String> tables = TRANSACTION_TABLES.get();
+        if (tables != null) {
+            tables.add(tableName.toLowerCase(Locale.ROOT));
+            return;
+        }
+        DB db = instance;
+        if (db != null) {
+            db.modelCache.invalidate(tableName);
+            db.inMemoryTables.reload(tableName);
         }
     }
 
+    /**
+     * This checks whether a transaction started with {@link #transaction(Consumer)} is open on this thread, queries
+     * inside one skip the model cache and the tables in memory so they see the transaction's own writes.
+     *
+     * @return boolean
+     */
+    static boolean inTransaction() {
+        return TRANSACTION_TABLES.get() != null;
+    }
+
     @SneakyThrows
     public static <T extends IDBRecord> IQueryBuilder<T> table(String name) {
         return table(name, "id");
@@ -53,11 +153,38 @@ public class DB {
         return getConnection().createCommandBuilder(tableName).insert(values);
     }
 
+    public static int insertMany(String tableName, List<Map<String, Object>> rows) {
+        return getConnection().createCommandBuilder(tableName).insertMany(rows);
+    }
+
     public static ICommandBuilder command(String tableName) {
         return getConnection().createCommandBuilder(tableName);
     }
 
-    public static void install(IDatabaseConfig databaseConfig) {
+    /**
+     * This will run the work inside a single transaction, see {@link ITransaction}.
+     *
+     * @param work - The work to do inside the transaction.
+     */
+    @SneakyThrows
+    public static void transaction(Consumer<ITransaction> work) {
+        if (TRANSACTION_TABLES.get() != null) {
+            // it is nested inside the open transaction, which clears the tables once it has finished
+            getConnection().transaction(work);
+            return;
+        }
+        Set<String> tables = new HashSet<>();
+        TRANSACTION_TABLES.set(tables);
+        try {
+            getConnection().transaction(work);
+        } finally {
+            // only the tables that were written to can have changed, whether it was committed or rolled back
+            TRANSACTION_TABLES.remove();
+            tables.forEach(DB::tableChanged);
+        }
+    }
+
+    public static synchronized void install(IDatabaseConfig databaseConfig) {
         if (instance != null) {
             throw new RuntimeException("cannot install DB twice, only one connection can be open at a time for now.");
         } else {
@@ -69,6 +196,29 @@ public class DB {
         return getInstance().connection;
     }
 
+    /**
+     * This is the scheduler reactive code should use to run database queries on.
+     *
+     * @return Scheduler
+     */
+    public static Scheduler scheduler() {
+        return getInstance().scheduler;
+    }
+
+    /**
+     * This will write the deferred saves, close the connection to the database and stop the database scheduler.
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.writeBehind.close();
+            instance.scheduler.dispose();
+            if (instance.connection != null) {
+                instance.connection.close();
+            }
+            instance = null;
+        }
+    }
+
     private static DB getInstance() {
         if (instance == null) {
             throw new RuntimeException("Database not installed!, please run DB.install(ConnectionOptions); " +
@@ -77,26 +227,4 @@ public class DB {
 
         return instance;
     }
-
-    private boolean checkIfTableExists(String tableName) {
-        try {
-            Statement statement = connection.getSQLConnection().createStatement();
-            statement.executeQuery(String.format("SELECT * FROM %s", tableName));
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
-    }
-
-    private void createTable(final TableBuilder tableBuilder) {
-        try {
-            service.submit(() -> {
-                Statement preparedStatement;
-                preparedStatement = connection.getSQLConnection().createStatement();
-                return preparedStatement.execute(tableBuilder.build());
-            }).get();
-        } catch (Exception e) {
-            log.error("Unable to create table:" + tableBuilder.getTableName(), e);
-        }
-    }
 }
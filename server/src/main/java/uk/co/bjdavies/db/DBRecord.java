@@ -3,9 +3,8 @@ package uk.co.bjdavies.db;
 import lombok.extern.log4j.Log4j2;
 import uk.co.bjdavies.api.db.IDBRecord;
 
-import java.util.Arrays;
+import java.io.IOException;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * @author ben.davies99@outlook.com (Ben Davies)
@@ -47,49 +46,26 @@ public class DBRecord implements IDBRecord {
 
     @Override
     public int getInt(String key) {
-        return Integer.parseInt(getString(key));
+        Object value = get(key);
+        return value instanceof Number ? ((Number) value).intValue() : Integer.parseInt(String.valueOf(value));
     }
 
     @Override
     public float getFloat(String key) {
-        return Float.parseFloat(getString(key));
+        Object value = get(key);
+        return value instanceof Number ? ((Number) value).floatValue() : Float.parseFloat(String.valueOf(value));
     }
 
     @Override
     public String toJsonString(String... keysToHide) {
-        StringBuilder stringBuilder = new StringBuilder();
-        stringBuilder.append("{");
-        data.forEach((key, value) -> {
-            if (Arrays.stream(keysToHide).noneMatch(e1 -> e1.toLowerCase().equals(key.toLowerCase()))) {
-                stringBuilder.append("\"").append(key).append("\":").append((value instanceof String) ? "\"" + value + "\"" : value);
-
-                int index = getIndex(data.keySet(), key);
-                if (!(index == data.size() - 1)) {
-                    stringBuilder.append(",");
-                }
-            }
-        });
-        stringBuilder.append("}");
-        return stringBuilder.toString();
+        return JsonWriter.toJsonString(data, keysToHide);
     }
 
-    /**
-     * This will return the current index of a set.
-     *
-     * @param set   - The set to check.
-     * @param value - The current set's indexes value.
-     * @return int
-     */
-    private int getIndex(Set<?> set, Object value) {
-        int result = 0;
-        for (Object entry : set) {
-            if (entry.equals(value)) return result;
-            result++;
-        }
-        return -1;
+    @Override
+    public void writeJson(Appendable out, String... keysToHide) throws IOException {
+        JsonWriter.writeMap(out, data, keysToHide);
     }
 
-
     @Override
     public boolean equals(String key, String value) {
         if (data.containsKey(key)) {
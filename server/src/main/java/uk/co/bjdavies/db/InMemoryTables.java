@@ -0,0 +1,291 @@
+package uk.co.bjdavies.db;
+
+import lombok.extern.log4j.Log4j2;
+import uk.co.bjdavies.api.db.IConnection;
+import uk.co.bjdavies.api.db.IDBRecord;
+import uk.co.bjdavies.api.db.IQueryBuilder;
+import uk.co.bjdavies.api.db.InMemory;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This keeps the tables of models annotated with {@link InMemory} in memory.
+ * <p>
+ * Each table is an immutable snapshot of its rows with a hash index for each declared column, reads never lock and
+ * never touch the database. After a write to the table the thread that wrote reads the table again and swaps the new
+ * snapshot in, so readers always see the rows and the indexes change together and a thread sees its own write as soon
+ * as it returns. A snapshot read for an older write never replaces one read for a newer write. Writes inside a
+ * transaction only read the table once, when the transaction has finished.
+ * </p>
+ * <p>
+ * If the table cannot be read after a write the old snapshot is no longer trusted, readers read the database instead
+ * and try to read the table again until it works.
+ * </p>
+ * <p>
+ * Values are matched the way SQLite compares a bound string: a row value that is a number matches any string that is
+ * the same number so 1 matches "1" and "1.0", and a row value that is text only matches the same text. Other type
+ * affinities and collations aren't followed, e.g. NOCASE columns are still matched case sensitively.
+ * </p>
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+@Log4j2
+public final class InMemoryTables {
+
+    private final IConnection connection;
+
+    /**
+     * These are the tables keyed by their lowercase name, a table is read the first time its model is used.
+     */
+    private final Map<String, Table> tables = new ConcurrentHashMap<>();
+
+    public InMemoryTables(IConnection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * This checks whether the model's table is kept in memory.
+     *
+     * @param modelClass - The class of the model.
+     * @return boolean
+     */
+    public boolean isInMemory(Class<?> modelClass) {
+        return ModelMetadata.of(modelClass).getInMemory() != null;
+    }
+
+    /**
+     * This will return the rows of the model's table where the column equals the value.
+     *
+     * @param modelClass - The class of the model, it must be {@link #isInMemory(Class)}.
+     * @param column     - The column or null for every row.
+     * @param value      - The value of the column.
+     * @param limit      - The most rows to return, -1 for all of them.
+     * @return List - The rows, they must not be changed.
+     */
+    public List<Map<String, Object>> select(Class<?> modelClass, String column, String value, int limit) {
+        Table table = table(modelClass);
+        Snapshot snapshot = table.snapshot;
+        if (snapshot == null || table.failed) {
+            snapshot = table.reload(connection);
+            if (snapshot == null) {
+                return table.query(connection, column, value, limit);
+            }
+        }
+        List<Map<String, Object>> rows = snapshot.select(column, value);
+        return limit != -1 && rows.size() > limit ? rows.subList(0, limit) : rows;
+    }
+
+    /**
+     * This will read the table again if it is kept in memory and has been used, it is called after every write to
+     * it on the thread that wrote.
+     *
+     * @param tableName - The name of the table.
+     */
+    public void reload(String tableName) {
+        Table table = tables.get(tableName.toLowerCase(Locale.ROOT));
+        if (table != null) {
+            table.reload(connection);
+        }
+    }
+
+    private Table table(Class<?> modelClass) {
+        ModelMetadata metadata = ModelMetadata.of(modelClass);
+        return tables.computeIfAbsent(metadata.getTableName(), k -> new Table(metadata));
+    }
+
+    private static final class Table {
+        private final String tableName;
+        private final String primaryKey;
+        private final String[] indexedColumns;
+
+        /**
+         * This counts the reads of the table, a read only replaces the snapshot if it started after the read the
+         * snapshot came from.
+         */
+        private final AtomicLong reads = new AtomicLong();
+
+        /**
+         * This is the snapshot of the table, null until it is first read.
+         */
+        private volatile Snapshot snapshot;
+
+        /**
+         * This is true if the last read of the table failed so the snapshot may be missing writes.
+         */
+        private volatile boolean failed;
+
+        private Table(ModelMetadata metadata) {
+            this.tableName = metadata.getTableName();
+            this.primaryKey = metadata.getPrimaryKey();
+            this.indexedColumns = metadata.getInMemory().index();
+        }
+
+        /**
+         * This will read the table and swap the new snapshot in unless a newer one is already in.
+         *
+         * @param connection - The connection to read the table with.
+         * @return Snapshot - The snapshot that is in, null if the table couldn't be read.
+         */
+        private Snapshot reload(IConnection connection) {
+            long read = reads.incrementAndGet();
+            Snapshot loaded;
+            try {
+                List<Map<String, Object>> rows = new ArrayList<>();
+                for (IDBRecord record : connection.<IDBRecord>createQueryBuilder(tableName, primaryKey).get()) {
+                    rows.add(Collections.unmodifiableMap(new HashMap<>(record.getData())));
+                }
+                loaded = new Snapshot(read, rows, indexedColumns);
+            } catch (Exception e) {
+                synchronized (this) {
+                    if (snapshot == null || snapshot.read < read) {
+                        failed = true;
+                    }
+                }
+                log.error("Unable to read table into memory: " + tableName, e);
+                return null;
+            }
+
+            synchronized (this) {
+                if (snapshot == null || snapshot.read < read) {
+                    snapshot = loaded;
+                    failed = false;
+                }
+                return snapshot;
+            }
+        }
+
+        /**
+         * This will read the rows from the database, it is only used while the table cannot be read into memory.
+         *
+         * @param connection - The connection to read the rows with.
+         * @param column     - The column or null for every row.
+         * @param value      - The value of the column.
+         * @param limit      - The most rows to return, -1 for all of them.
+         * @return List
+         */
+        private List<Map<String, Object>> query(IConnection connection, String column, String value, int limit) {
+            IQueryBuilder<IDBRecord> query = connection.createQueryBuilder(tableName, primaryKey);
+            if (column != null) {
+                query.where(column, value);
+            }
+            if (limit != -1) {
+                query.limit(limit);
+            }
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (IDBRecord record : query.get()) {
+                rows.add(Collections.unmodifiableMap(new HashMap<>(record.getData())));
+            }
+            return rows;
+        }
+    }
+
+    private static final class Snapshot {
+        private final long read;
+        private final List<Map<String, Object>> rows;
+
+        /**
+         * These are the indexes keyed by the lowercase column name and then the value of the column, see
+         * {@link #keyOf(Object)}.
+         */
+        private final Map<String, Map<Object, List<Map<String, Object>>>> indexes = new HashMap<>();
+
+        private Snapshot(long read, List<Map<String, Object>> rows, String[] indexedColumns) {
+            this.read = read;
+            this.rows = Collections.unmodifiableList(rows);
+            for (String column : indexedColumns) {
+                Map<Object, List<Map<String, Object>>> index = new HashMap<>();
+                for (Map<String, Object> row : rows) {
+                    Object value = valueOf(row, column);
+                    if (value != null) {
+                        index.computeIfAbsent(keyOf(value), k -> new ArrayList<>(1)).add(row);
+                    }
+                }
+                indexes.put(column.toLowerCase(Locale.ROOT), index);
+            }
+        }
+
+        private List<Map<String, Object>> select(String column, String value) {
+            if (column == null) {
+                return rows;
+            }
+
+            BigDecimal number = numberOf(value);
+            Map<Object, List<Map<String, Object>>> index = indexes.get(column.toLowerCase(Locale.ROOT));
+            if (index != null) {
+                List<Map<String, Object>> text = index.getOrDefault(value, Collections.emptyList());
+                List<Map<String, Object>> numbers = number == null ? Collections.emptyList() :
+                        index.getOrDefault(number, Collections.emptyList());
+                if (numbers.isEmpty() || text.isEmpty()) {
+                    return numbers.isEmpty() ? text : numbers;
+                }
+                // the column has both text and numbers that match so they are scanned to keep the rows in order
+            }
+
+            List<Map<String, Object>> matches = new ArrayList<>();
+            for (Map<String, Object> row : rows) {
+                Object rowValue = valueOf(row, column);
+                if (rowValue != null && (rowValue instanceof Number ? keyOf(rowValue).equals(number) :
+                        String.valueOf(rowValue).equals(value))) {
+                    matches.add(row);
+                }
+            }
+            return matches;
+        }
+
+        /**
+         * This is the key of a row value in an index, numbers are keyed by their value so the same number written
+         * differently has the same key and everything else is keyed by its text.
+         *
+         * @param value - The row value.
+         * @return Object - A {@link BigDecimal} for numbers or a String.
+         */
+        private static Object keyOf(Object value) {
+            if (value instanceof Number) {
+                BigDecimal number = numberOf(String.valueOf(value));
+                if (number != null) {
+                    return number;
+                }
+            }
+            return String.valueOf(value);
+        }
+
+        /**
+         * This will read the string as a number the way {@link #keyOf(Object)} keys numbers.
+         *
+         * @param value - The string.
+         * @return BigDecimal - null if it isn't a finite number.
+         */
+        private static BigDecimal numberOf(String value) {
+            if (value == null) {
+                return null;
+            }
+            try {
+                BigDecimal number = new BigDecimal(value.trim()).stripTrailingZeros();
+                return number.signum() == 0 ? BigDecimal.ZERO : number;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private static Object valueOf(Map<String, Object> row, String column) {
+            if (row.containsKey(column)) {
+                return row.get(column);
+            }
+            for (Map.Entry<String, Object> entry : row.entrySet()) {
+                if (entry.getKey().equalsIgnoreCase(column)) {
+                    return entry.getValue();
+                }
+            }
+            return null;
+        }
+    }
+}
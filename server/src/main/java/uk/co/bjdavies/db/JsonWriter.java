@@ -0,0 +1,316 @@
+package uk.co.bjdavies.db;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import uk.co.bjdavies.api.db.IDBRecord;
+import uk.co.bjdavies.api.db.Model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This writes records and models as JSON straight to an {@link Appendable}, {@link OutputStream} or {@link ByteBuf}
+ * so a whole result set can be exported without a String being made for each row.
+ * <p>
+ * The columns to leave out are worked out once into a {@link BitSet} over the columns, models use the one made from
+ * their {@link uk.co.bjdavies.api.db.fields.Protected} fields and records from the same query share one.
+ * </p>
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+public final class JsonWriter {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private JsonWriter() {
+    }
+
+    /**
+     * This will make the bitmap of the columns to leave out.
+     *
+     * @param columnNames - The names of the columns in order.
+     * @param keysToHide  - The columns to leave out, they are matched ignoring case.
+     * @return BitSet - With a bit set for each column to leave out.
+     */
+    public static BitSet hidden(List<String> columnNames, String... keysToHide) {
+        BitSet hidden = new BitSet(columnNames.size());
+        if (keysToHide.length == 0) {
+            return hidden;
+        }
+        Set<String> keys = lowerCase(keysToHide);
+        for (int i = 0; i < columnNames.size(); i++) {
+            if (keys.contains(columnNames.get(i).toLowerCase(Locale.ROOT))) {
+                hidden.set(i);
+            }
+        }
+        return hidden;
+    }
+
+    /**
+     * This will write the record as a JSON object.
+     *
+     * @param out        - Where to write the JSON.
+     * @param record     - The record.
+     * @param keysToHide - The columns to leave out, they are matched ignoring case.
+     * @throws IOException if the output can't be written to.
+     */
+    public static void writeRecord(Appendable out, IDBRecord record, String... keysToHide) throws IOException {
+        if (record instanceof CompactRecord) {
+            CompactRecord compact = (CompactRecord) record;
+            writeRow(out, compact.getSchema().getColumnNames(), compact.values(),
+                    hidden(compact.getSchema().getColumnNames(), keysToHide));
+        } else {
+            record.writeJson(out, keysToHide);
+        }
+    }
+
+    /**
+     * This will write the records as a JSON array, records read by the same query share the bitmap of the columns to
+     * leave out.
+     *
+     * @param out        - Where to write the JSON.
+     * @param records    - The records.
+     * @param keysToHide - The columns to leave out, they are matched ignoring case.
+     * @throws IOException if the output can't be written to.
+     */
+    public static void writeRecords(Appendable out, Iterable<? extends IDBRecord> records, String... keysToHide)
+            throws IOException {
+        RowSchema schema = null;
+        BitSet hidden = null;
+        boolean first = true;
+        out.append('[');
+        for (IDBRecord record : records) {
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            if (record instanceof CompactRecord) {
+                CompactRecord compact = (CompactRecord) record;
+                if (compact.getSchema() != schema) {
+                    schema = compact.getSchema();
+                    hidden = hidden(schema.getColumnNames(), keysToHide);
+                }
+                writeRow(out, schema.getColumnNames(), compact.values(), hidden);
+            } else {
+                record.writeJson(out, keysToHide);
+            }
+        }
+        out.append(']');
+    }
+
+    public static void writeRecords(OutputStream out, Iterable<? extends IDBRecord> records, String... keysToHide)
+            throws IOException {
+        Writer writer = writer(out);
+        writeRecords(writer, records, keysToHide);
+        writer.flush();
+    }
+
+    public static void writeRecords(ByteBuf out, Iterable<? extends IDBRecord> records, String... keysToHide)
+            throws IOException {
+        writeRecords(new ByteBufOutputStream(out), records, keysToHide);
+    }
+
+    /**
+     * This will write the models as a JSON array, each without its protected fields.
+     *
+     * @param out    - Where to write the JSON.
+     * @param models - The models.
+     * @throws IOException if the output can't be written to.
+     */
+    public static void writeModels(Appendable out, Iterable<? extends Model> models) throws IOException {
+        boolean first = true;
+        out.append('[');
+        for (Model model : models) {
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            model.writeJson(out);
+        }
+        out.append(']');
+    }
+
+    public static void writeModels(OutputStream out, Iterable<? extends Model> models) throws IOException {
+        Writer writer = writer(out);
+        writeModels(writer, models);
+        writer.flush();
+    }
+
+    public static void writeModels(ByteBuf out, Iterable<? extends Model> models) throws IOException {
+        writeModels(new ByteBufOutputStream(out), models);
+    }
+
+    /**
+     * This will write the values of a model's columns as a JSON object, leaving out its protected columns.
+     *
+     * @param out      - Where to write the JSON.
+     * @param metadata - The metadata of the model.
+     * @param values   - The values in the same order as {@link ModelMetadata#getColumns()}.
+     * @throws IOException if the output can't be written to.
+     */
+    public static void writeColumns(Appendable out, ModelMetadata metadata, Object[] values) throws IOException {
+        writeRow(out, metadata.getColumnNames(), values, metadata.protectedColumns());
+    }
+
+    /**
+     * This will write a row as a JSON object.
+     *
+     * @param out         - Where to write the JSON.
+     * @param columnNames - The names of the columns.
+     * @param values      - The values in the same order as the names.
+     * @param hidden      - The columns to leave out.
+     * @throws IOException if the output can't be written to.
+     */
+    public static void writeRow(Appendable out, List<String> columnNames, Object[] values, BitSet hidden)
+            throws IOException {
+        boolean first = true;
+        out.append('{');
+        for (int i = 0; i < values.length; i++) {
+            if (hidden.get(i)) {
+                continue;
+            }
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            writeString(out, columnNames.get(i));
+            out.append(':');
+            writeValue(out, values[i]);
+        }
+        out.append('}');
+    }
+
+    /**
+     * This will write a map of columns as a JSON object.
+     *
+     * @param out        - Where to write the JSON.
+     * @param data       - The columns.
+     * @param keysToHide - The columns to leave out, they are matched ignoring case.
+     * @throws IOException if the output can't be written to.
+     */
+    public static void writeMap(Appendable out, Map<String, Object> data, String... keysToHide) throws IOException {
+        Set<String> keys = lowerCase(keysToHide);
+        boolean first = true;
+        out.append('{');
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            if (!keys.isEmpty() && keys.contains(entry.getKey().toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            writeString(out, entry.getKey());
+            out.append(':');
+            writeValue(out, entry.getValue());
+        }
+        out.append('}');
+    }
+
+    /**
+     * This will write a map of columns as a JSON String.
+     *
+     * @param data       - The columns.
+     * @param keysToHide - The columns to leave out, they are matched ignoring case.
+     * @return String
+     */
+    public static String toJsonString(Map<String, Object> data, String... keysToHide) {
+        StringBuilder json = new StringBuilder(data.size() * 16);
+        try {
+            writeMap(json, data, keysToHide);
+        } catch (IOException e) {
+            // a StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+        return json.toString();
+    }
+
+    private static void writeValue(Appendable out, Object value) throws IOException {
+        if (value == null) {
+            out.append("null");
+        } else if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            out.append(Double.isNaN(number) || Double.isInfinite(number) ? "null" : value.toString());
+        } else if (value instanceof Number || value instanceof Boolean) {
+            out.append(value.toString());
+        } else {
+            writeString(out, value.toString());
+        }
+    }
+
+    /**
+     * This will write the String quoted and escaped, the characters that don't need escaping are written in runs.
+     *
+     * @param out   - Where to write the String.
+     * @param value - The String.
+     * @throws IOException if the output can't be written to.
+     */
+    private static void writeString(Appendable out, String value) throws IOException {
+        out.append('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\' && c != '\u2028' && c != '\u2029') {
+                continue;
+            }
+            if (start < i) {
+                out.append(value, start, i);
+            }
+            start = i + 1;
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                case '\b':
+                    out.append("\\b");
+                    break;
+                case '\f':
+                    out.append("\\f");
+                    break;
+                default:
+                    out.append("\\u").append(HEX[c >> 12 & 0xF]).append(HEX[c >> 8 & 0xF])
+                            .append(HEX[c >> 4 & 0xF]).append(HEX[c & 0xF]);
+            }
+        }
+        if (start < value.length()) {
+            out.append(value, start, value.length());
+        }
+        out.append('"');
+    }
+
+    private static Set<String> lowerCase(String[] keys) {
+        Set<String> lowerCase = new HashSet<>(keys.length * 2);
+        for (String key : keys) {
+            lowerCase.add(key.toLowerCase(Locale.ROOT));
+        }
+        return lowerCase;
+    }
+
+    private static Writer writer(OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+}
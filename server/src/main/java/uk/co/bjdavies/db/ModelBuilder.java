@@ -1,7 +1,13 @@
 package uk.co.bjdavies.db;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import uk.co.bjdavies.api.db.*;
+import uk.co.bjdavies.db.impl.RelationLoader;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,6 +18,7 @@ import java.util.Optional;
 public class ModelBuilder<T extends Model> implements IModelBuilder<T> {
 
     private final IQueryBuilder<T> query;
+    private final List<String> eagerLoad = new ArrayList<>();
 
     public ModelBuilder(String primaryKey, String tableName, IConnection connection, Class<T> model) {
         query = connection.createQueryBuilder(tableName, primaryKey, model);
@@ -20,13 +27,13 @@ public class ModelBuilder<T extends Model> implements IModelBuilder<T> {
     @Override
     public <E extends Model> List<E> get() {
         //noinspection unchecked
-        return (List<E>) query.get();
+        return (List<E>) withRelations(query.get());
     }
 
     @Override
     public <E extends Model> List<E> get(String... columns) {
         //noinspection unchecked
-        return (List<E>) query.get(columns);
+        return (List<E>) withRelations(query.get(columns));
     }
 
     @Override
@@ -37,7 +44,7 @@ public class ModelBuilder<T extends Model> implements IModelBuilder<T> {
     @Override
     public <E extends Model> Optional<E> first(String... columns) {
         //noinspection unchecked
-        return (Optional<E>) query.first(columns);
+        return (Optional<E>) query.first(columns).map(this::withRelations);
     }
 
     @Override
@@ -48,7 +55,7 @@ public class ModelBuilder<T extends Model> implements IModelBuilder<T> {
     @Override
     public <E extends Model> Optional<E> find(int id, String... columns) {
         //noinspection unchecked
-        return (Optional<E>) query.find(id, columns);
+        return (Optional<E>) query.find(id, columns).map(this::withRelations);
     }
 
     @Override
@@ -59,7 +66,7 @@ public class ModelBuilder<T extends Model> implements IModelBuilder<T> {
     @Override
     public <E extends Model> E findOrFail(int id, String... columns) throws NullPointerException {
         //noinspection unchecked
-        return (E) query.findOrFail(id, columns);
+        return (E) withRelations(query.findOrFail(id, columns));
     }
 
     @Override
@@ -86,6 +93,12 @@ public class ModelBuilder<T extends Model> implements IModelBuilder<T> {
         return this;
     }
 
+    @Override
+    public IModelBuilder<T> after(String column, Object lastValue) {
+        query.after(column, lastValue);
+        return this;
+    }
+
     @Override
     public IModelBuilder<T> where(String key, Object value) {
         query.where(key, value);
@@ -116,6 +129,42 @@ public class ModelBuilder<T extends Model> implements IModelBuilder<T> {
         return this;
     }
 
+    @Override
+    public IModelBuilder<T> whereIn(String key, Collection<?> values) {
+        query.whereIn(key, values);
+        return this;
+    }
+
+    @Override
+    public IModelBuilder<T> whereNotIn(String key, Collection<?> values) {
+        query.whereNotIn(key, values);
+        return this;
+    }
+
+    @Override
+    public IModelBuilder<T> between(String key, Object low, Object high) {
+        query.between(key, low, high);
+        return this;
+    }
+
+    @Override
+    public IModelBuilder<T> whereNull(String key) {
+        query.whereNull(key);
+        return this;
+    }
+
+    @Override
+    public IModelBuilder<T> whereNotNull(String key) {
+        query.whereNotNull(key);
+        return this;
+    }
+
+    @Override
+    public IModelBuilder<T> with(String... relations) {
+        Collections.addAll(eagerLoad, relations);
+        return this;
+    }
+
     @Override
     public int count() {
         return query.count();
@@ -131,8 +180,65 @@ public class ModelBuilder<T extends Model> implements IModelBuilder<T> {
         return query.doesntExist();
     }
 
+    @Override
+    public <E extends Model> Flux<E> stream() {
+        Flux<T> models = query.stream();
+        if (!eagerLoad.isEmpty()) {
+            // the stream holds a reader until it is drained so the relations can only be loaded once every row has
+            // been read, otherwise concurrent streams can end up waiting on each other for a reader
+            models = models.collectList().flatMapIterable(this::withRelations);
+        }
+        //noinspection unchecked
+        return (Flux<E>) models;
+    }
+
+    @Override
+    public <E extends Model> ICursor<E> cursor() {
+        //noinspection unchecked
+        return (ICursor<E>) query.cursor();
+    }
+
+    @Override
+    public <E extends Model> Mono<List<E>> getAsync() {
+        //noinspection unchecked
+        return (Mono<List<E>>) (Mono<?>) query.getAsync().map(this::withRelations);
+    }
+
+    @Override
+    public <E extends Model> Mono<E> firstAsync() {
+        //noinspection unchecked
+        return (Mono<E>) query.firstAsync().map(this::withRelations);
+    }
+
+    @Override
+    public Mono<Integer> countAsync() {
+        return query.countAsync();
+    }
+
+    @Override
+    public Mono<Boolean> existsAsync() {
+        return query.existsAsync();
+    }
+
+    @Override
+    public Mono<Boolean> doesntExistAsync() {
+        return query.doesntExistAsync();
+    }
+
     @Override
     public String buildQuery() {
         return query.buildQuery();
     }
+
+    private List<T> withRelations(List<T> models) {
+        if (!eagerLoad.isEmpty()) {
+            RelationLoader.load(models, eagerLoad.toArray(new String[0]));
+        }
+        return models;
+    }
+
+    private T withRelations(T model) {
+        withRelations(Collections.singletonList(model));
+        return model;
+    }
 }
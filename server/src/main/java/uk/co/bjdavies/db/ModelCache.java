@@ -0,0 +1,156 @@
+package uk.co.bjdavies.db;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import uk.co.bjdavies.api.db.Cached;
+import uk.co.bjdavies.api.db.Model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This is the read-through cache for models annotated with {@link Cached}, lookups by the primary key or one of the
+ * declared lookup columns keep the rows they returned and any write to the table clears them.
+ * <p>
+ * The rows are kept rather than the models so every lookup gets its own models that it can change freely.
+ * </p>
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+public final class ModelCache {
+
+    private final boolean enabled;
+
+    /**
+     * These are the caches keyed by the lowercase name of the table.
+     */
+    private final Map<String, TableCache> tables = new ConcurrentHashMap<>();
+
+    public ModelCache(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * This checks whether lookups of the model by the column are cached.
+     *
+     * @param modelClass - The class of the model.
+     * @param column     - The column being looked up.
+     * @return boolean
+     */
+    public boolean isCached(Class<?> modelClass, String column) {
+        if (!enabled) {
+            return false;
+        }
+        ModelMetadata metadata = ModelMetadata.of(modelClass);
+        Cached cached = metadata.getCached();
+        return cached != null && (metadata.getPrimaryKey().equalsIgnoreCase(column) ||
+                Arrays.stream(cached.lookup()).anyMatch(column::equalsIgnoreCase));
+    }
+
+    /**
+     * This will return the models where the column equals the value, from the cache if they've been looked up
+     * before or from the loader if not.
+     *
+     * @param modelClass - The class of the model, {@link #isCached(Class, String)} must be true for the column.
+     * @param column     - The column being looked up.
+     * @param value      - The value of the column.
+     * @param limit      - The limit of the query, -1 for none.
+     * @param loader     - This runs the query.
+     * @param <T>        - The type of the model.
+     * @return List
+     * @throws Exception if the loader fails.
+     */
+    public <T> List<T> get(Class<T> modelClass, String column, String value, int limit, Callable<List<T>> loader)
+            throws Exception {
+        TableCache table = table(modelClass);
+        List<Object> key = Arrays.asList(column.toLowerCase(Locale.ROOT), value, limit);
+
+        List<Map<String, Object>> rows = table.rows.getIfPresent(key);
+        if (rows != null) {
+            ModelMetadata metadata = ModelMetadata.of(modelClass);
+            List<T> models = new ArrayList<>(rows.size());
+            for (Map<String, Object> row : rows) {
+                models.add(metadata.newInstance(row));
+            }
+            return models;
+        }
+
+        long generation = table.generation.get();
+        List<T> models = loader.call();
+        List<Map<String, Object>> loaded = new ArrayList<>(models.size());
+        for (T model : models) {
+            loaded.add(new HashMap<>(((Model) model).getData()));
+        }
+        // don't keep rows that a write may have changed while they were being read
+        if (table.generation.get() == generation) {
+            table.rows.put(key, loaded);
+        }
+        return models;
+    }
+
+    /**
+     * This will clear the cache of the table, it is called after every write to it.
+     *
+     * @param tableName - The name of the table.
+     */
+    public void invalidate(String tableName) {
+        TableCache table = tables.get(tableName.toLowerCase(Locale.ROOT));
+        if (table != null) {
+            table.invalidate();
+        }
+    }
+
+    /**
+     * This will clear the cache of every table.
+     */
+    public void invalidateAll() {
+        tables.values().forEach(TableCache::invalidate);
+    }
+
+    /**
+     * This will return the hit, miss and eviction counts of the model's cache.
+     *
+     * @param modelClass - The class of the model.
+     * @return CacheStats - Empty if the model hasn't been cached yet.
+     */
+    public CacheStats stats(Class<?> modelClass) {
+        TableCache table = tables.get(ModelMetadata.of(modelClass).getTableName());
+        return table == null ? new CacheStats(0, 0, 0, 0, 0, 0) : table.rows.stats();
+    }
+
+    private TableCache table(Class<?> modelClass) {
+        ModelMetadata metadata = ModelMetadata.of(modelClass);
+        return tables.computeIfAbsent(metadata.getTableName(), k -> new TableCache(metadata.getCached()));
+    }
+
+    private static final class TableCache {
+        private final Cache<List<Object>, List<Map<String, Object>>> rows;
+
+        /**
+         * This goes up every time the table is written to.
+         */
+        private final AtomicLong generation = new AtomicLong();
+
+        private TableCache(Cached cached) {
+            rows = CacheBuilder.newBuilder()
+                    .maximumSize(cached.maximumSize())
+                    .expireAfterWrite(cached.expireAfter(), cached.unit())
+                    .recordStats()
+                    .build();
+        }
+
+        private void invalidate() {
+            generation.incrementAndGet();
+            rows.invalidateAll();
+        }
+    }
+}
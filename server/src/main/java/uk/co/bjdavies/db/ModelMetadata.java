@@ -0,0 +1,531 @@
+package uk.co.bjdavies.db;
+
+import uk.co.bjdavies.api.db.Cached;
+import uk.co.bjdavies.api.db.InMemory;
+import uk.co.bjdavies.api.db.WriteBehind;
+import uk.co.bjdavies.api.db.Model;
+import uk.co.bjdavies.api.db.TableName;
+import uk.co.bjdavies.api.db.fields.CompositeIndex;
+import uk.co.bjdavies.api.db.fields.Index;
+import uk.co.bjdavies.api.db.fields.IntField;
+import uk.co.bjdavies.api.db.fields.PrimaryField;
+import uk.co.bjdavies.api.db.fields.Protected;
+import uk.co.bjdavies.api.db.fields.StringField;
+import uk.co.bjdavies.api.db.fields.Unique;
+import uk.co.bjdavies.api.db.methods.BelongsTo;
+import uk.co.bjdavies.api.db.methods.HasMany;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This is everything the database layer needs to know about a model class, it is worked out once per class the first
+ * time it's asked for and then shared.
+ * <p>
+ * It holds the table name, the primary key, the columns in the order they're declared and the relations, each with
+ * pre-bound {@link MethodHandle}s to read and write the field so models can be hydrated and saved without looking the
+ * fields up through reflection every time.
+ * </p>
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+public final class ModelMetadata {
+
+    private static final ClassValue<ModelMetadata> REGISTRY = new ClassValue<ModelMetadata>() {
+        @Override
+        protected ModelMetadata computeValue(Class<?> type) {
+            return new ModelMetadata(type);
+        }
+    };
+
+    private final Class<?> modelClass;
+    private final String tableName;
+    private final String primaryKey;
+    private final boolean increments;
+    private final List<Column> columns;
+    private final Map<String, Column> columnsByName;
+    private final List<Relation> relations;
+    private final Map<String, Relation> relationsByName;
+    private final String[] protectedFields;
+    private final List<String> columnNames;
+    private final BitSet protectedColumns;
+    private final MethodHandle constructor;
+    private final Cached cached;
+    private final InMemory inMemory;
+    private final boolean writeBehind;
+    private final CompositeIndex[] compositeIndexes;
+
+    private ModelMetadata(Class<?> modelClass) {
+        this.modelClass = modelClass;
+        this.tableName = Arrays.stream(modelClass.getDeclaredConstructors())
+                .filter(c -> c.isAnnotationPresent(TableName.class))
+                .map(c -> c.getAnnotation(TableName.class).name()).findAny()
+                .orElse(ModelUtils.pluralize(modelClass.getSimpleName())).toLowerCase();
+
+        Field[] fields = modelClass.getDeclaredFields();
+        this.primaryKey = Arrays.stream(fields).filter(f -> f.isAnnotationPresent(PrimaryField.class))
+                .map(Field::getName).findAny().orElse("id");
+        this.increments = Arrays.stream(fields).anyMatch(f ->
+                f.isAnnotationPresent(PrimaryField.class) && f.isAnnotationPresent(IntField.class));
+
+        List<Column> columnList = new ArrayList<>();
+        List<Relation> relationList = new ArrayList<>();
+        List<String> protectedList = new ArrayList<>();
+        for (Field field : fields) {
+            if (field.isAnnotationPresent(IntField.class) || field.isAnnotationPresent(StringField.class)) {
+                columnList.add(new Column(field));
+            } else if (field.isAnnotationPresent(BelongsTo.class) || field.isAnnotationPresent(HasMany.class)) {
+                relationList.add(new Relation(field, modelClass, primaryKey));
+            }
+            if (field.isAnnotationPresent(Protected.class)) {
+                protectedList.add(field.getName());
+            }
+        }
+
+        Map<String, Column> byName = new LinkedHashMap<>();
+        columnList.forEach(c -> byName.put(c.getName(), c));
+
+        this.columns = Collections.unmodifiableList(columnList);
+        this.columnsByName = Collections.unmodifiableMap(byName);
+        this.relations = Collections.unmodifiableList(relationList);
+        Map<String, Relation> relationsByName = new LinkedHashMap<>();
+        relationList.forEach(r -> relationsByName.put(r.getName(), r));
+        this.relationsByName = Collections.unmodifiableMap(relationsByName);
+        this.protectedFields = protectedList.toArray(new String[0]);
+        List<String> names = new ArrayList<>(columnList.size());
+        columnList.forEach(c -> names.add(c.getName()));
+        this.columnNames = Collections.unmodifiableList(names);
+        this.protectedColumns = JsonWriter.hidden(names, protectedFields);
+        this.constructor = findConstructor(modelClass);
+        this.cached = modelClass.getAnnotation(Cached.class);
+        this.inMemory = modelClass.getAnnotation(InMemory.class);
+        this.writeBehind = modelClass.isAnnotationPresent(WriteBehind.class);
+        this.compositeIndexes = modelClass.getAnnotationsByType(CompositeIndex.class);
+    }
+
+    /**
+     * This will return the metadata for the model class, working it out if this is the first time it's been asked for.
+     *
+     * @param modelClass - The class of the model.
+     * @return ModelMetadata
+     */
+    public static ModelMetadata of(Class<?> modelClass) {
+        return REGISTRY.get(modelClass);
+    }
+
+    private static MethodHandle findConstructor(Class<?> modelClass) {
+        try {
+            Constructor<?> constructor = modelClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return MethodHandles.lookup().unreflectConstructor(constructor)
+                    .asType(MethodType.methodType(Object.class));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    public Class<?> getModelClass() {
+        return modelClass;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * This is the name of the primary key as it's declared in the model, "id" if none is declared.
+     *
+     * @return String
+     */
+    public String getPrimaryKey() {
+        return primaryKey;
+    }
+
+    /**
+     * This is true if the primary key is an auto incrementing int.
+     *
+     * @return boolean
+     */
+    public boolean isIncrementing() {
+        return increments;
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    /**
+     * This will return the column with the name or null if the model doesn't have one.
+     *
+     * @param name - The name of the column.
+     * @return Column
+     */
+    public Column getColumn(String name) {
+        return columnsByName.get(name);
+    }
+
+    public List<Relation> getRelations() {
+        return relations;
+    }
+
+    /**
+     * This will return the relation with the name or null if the model doesn't have one.
+     *
+     * @param name - The name of the relation's field.
+     * @return Relation
+     */
+    public Relation getRelation(String name) {
+        return relationsByName.get(name);
+    }
+
+    /**
+     * These are the fields that are hidden from the model's JSON output.
+     *
+     * @return String[]
+     */
+    public String[] getProtectedFields() {
+        return protectedFields.clone();
+    }
+
+    /**
+     * These are the names of the columns in the same order as {@link #getColumns()}.
+     *
+     * @return List
+     */
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    /**
+     * This has a bit set for each column in {@link #getColumns()} that is protected, it is worked out once so the
+     * model's JSON output doesn't have to match the names for every row.
+     *
+     * @return BitSet
+     */
+    public BitSet getProtectedColumns() {
+        return (BitSet) protectedColumns.clone();
+    }
+
+    BitSet protectedColumns() {
+        return protectedColumns;
+    }
+
+    /**
+     * This is how the model is cached or null if it isn't.
+     *
+     * @return Cached
+     */
+    public Cached getCached() {
+        return cached;
+    }
+
+    /**
+     * These are the indexes declared on the model over more than one column.
+     *
+     * @return CompositeIndex[]
+     */
+    public CompositeIndex[] getCompositeIndexes() {
+        return compositeIndexes.clone();
+    }
+
+    /**
+     * This is how the model is kept in memory or null if it isn't.
+     *
+     * @return InMemory
+     */
+    public InMemory getInMemory() {
+        return inMemory;
+    }
+
+    /**
+     * This is true if saves of the model are deferred, see {@link WriteBehind}.
+     *
+     * @return boolean
+     */
+    public boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    /**
+     * This will make a new instance of the model using its empty constructor.
+     *
+     * @param <T> - The type of the model.
+     * @return T
+     */
+    public <T> T newInstance() {
+        if (constructor == null) {
+            throw new IllegalStateException(modelClass.getName() + " needs an empty constructor to be a model.");
+        }
+        try {
+            //noinspection unchecked
+            return (T) (Object) constructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Unable to create model: " + modelClass.getName(), e);
+        }
+    }
+
+    /**
+     * This will make a new instance of the model with its data set from the row.
+     *
+     * @param row - The columns of the row, it is copied.
+     * @param <T> - The type of the model.
+     * @return T
+     */
+    public <T> T newInstance(Map<String, Object> row) {
+        T model = newInstance();
+        ((Model) model).setData(new HashMap<>(row));
+        return model;
+    }
+
+    private static MethodHandle getter(Field field) {
+        try {
+            field.setAccessible(true);
+            return MethodHandles.lookup().unreflectGetter(field)
+                    .asType(MethodType.methodType(Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to access field: " + field, e);
+        }
+    }
+
+    private static MethodHandle setter(Field field) {
+        try {
+            field.setAccessible(true);
+            return MethodHandles.lookup().unreflectSetter(field)
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to access field: " + field, e);
+        }
+    }
+
+    /**
+     * This is a field of the model that is stored as a column.
+     */
+    public static final class Column {
+
+        /**
+         * This is the type of the column.
+         */
+        public enum Type {
+            INT,
+            STRING
+        }
+
+        private final String name;
+        private final Type type;
+        private final boolean nullable;
+        private final boolean unique;
+        private final boolean primary;
+        private final boolean primaryIncrements;
+        private final Object defaultValue;
+        private final int charLimit;
+        private final Index index;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        private Column(Field field) {
+            this.name = field.getName();
+            if (field.isAnnotationPresent(IntField.class)) {
+                IntField intField = field.getAnnotation(IntField.class);
+                this.type = Type.INT;
+                this.nullable = intField.nullable();
+                this.defaultValue = intField.defaultValue() == -1 ? null : intField.defaultValue();
+                this.charLimit = 0;
+            } else {
+                StringField stringField = field.getAnnotation(StringField.class);
+                this.type = Type.STRING;
+                this.nullable = stringField.nullable();
+                this.defaultValue = stringField.defaultValue().equals("") ? null : stringField.defaultValue();
+                this.charLimit = stringField.charLimit();
+            }
+            this.unique = field.isAnnotationPresent(Unique.class);
+            this.index = field.getAnnotation(Index.class);
+            this.primary = field.isAnnotationPresent(PrimaryField.class);
+            this.primaryIncrements = primary && field.getAnnotation(PrimaryField.class).increments();
+            this.getter = getter(field);
+            this.setter = setter(field);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public boolean isNullable() {
+            return nullable;
+        }
+
+        public boolean isUnique() {
+            return unique;
+        }
+
+        public boolean isPrimary() {
+            return primary;
+        }
+
+        /**
+         * This is the value of {@link PrimaryField#increments()} if this is the primary key.
+         *
+         * @return boolean
+         */
+        public boolean isPrimaryIncrements() {
+            return primaryIncrements;
+        }
+
+        /**
+         * This is the default value of the column or null if it has none.
+         *
+         * @return Object
+         */
+        public Object getDefaultValue() {
+            return defaultValue;
+        }
+
+        public int getCharLimit() {
+            return charLimit;
+        }
+
+        /**
+         * This is the index declared on the column or null if it doesn't have one.
+         *
+         * @return Index
+         */
+        public Index getIndex() {
+            return index;
+        }
+
+        /**
+         * This will read the field from the model.
+         *
+         * @param model - The model to read from.
+         * @return Object
+         */
+        public Object get(Object model) {
+            try {
+                return (Object) getter.invokeExact(model);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Unable to read column: " + name, e);
+            }
+        }
+
+        /**
+         * This will write the field on the model.
+         *
+         * @param model - The model to write to.
+         * @param value - The value, an Integer for an int column.
+         */
+        public void set(Object model, Object value) {
+            try {
+                setter.invokeExact(model, value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Unable to write column: " + name, e);
+            }
+        }
+    }
+
+    /**
+     * This is a field of the model that holds a related model or models.
+     */
+    public static final class Relation {
+
+        /**
+         * This is the kind of the relation.
+         */
+        public enum Kind {
+            BELONGS_TO,
+            HAS_MANY
+        }
+
+        private final String name;
+        private final Kind kind;
+        private final Class<? extends Model> relatedClass;
+        private final String foreignKey;
+        private final String localKey;
+        private final MethodHandle setter;
+
+        private Relation(Field field, Class<?> owner, String primaryKey) {
+            this.name = field.getName();
+            if (field.isAnnotationPresent(BelongsTo.class)) {
+                BelongsTo belongsTo = field.getAnnotation(BelongsTo.class);
+                this.kind = Kind.BELONGS_TO;
+                //noinspection unchecked
+                this.relatedClass = (Class<? extends Model>) field.getType();
+                this.foreignKey = belongsTo.foreignKey().equals("") ?
+                        field.getType().getSimpleName().toLowerCase() + "Id" : belongsTo.foreignKey();
+                this.localKey = belongsTo.localKey().equals("") ? primaryKey : belongsTo.localKey();
+            } else {
+                HasMany hasMany = field.getAnnotation(HasMany.class);
+                this.kind = Kind.HAS_MANY;
+                ParameterizedType pType = (ParameterizedType) field.getGenericType();
+                //noinspection unchecked
+                this.relatedClass = (Class<? extends Model>) pType.getActualTypeArguments()[0];
+                this.foreignKey = hasMany.foreignKey().equals("") ?
+                        owner.getSimpleName().toLowerCase() + "Id" : hasMany.foreignKey();
+                this.localKey = hasMany.localKey().equals("") ? primaryKey : hasMany.localKey();
+            }
+            this.setter = setter(field);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * This is the class of the related model, for a {@link Kind#HAS_MANY} it is the type of the list.
+         *
+         * @return Class
+         */
+        public Class<? extends Model> getRelatedClass() {
+            return relatedClass;
+        }
+
+        public String getForeignKey() {
+            return foreignKey;
+        }
+
+        public String getLocalKey() {
+            return localKey;
+        }
+
+        /**
+         * This will write the field on the model.
+         *
+         * @param model - The model to write to.
+         * @param value - The related model or list of models.
+         */
+        public void set(Object model, Object value) {
+            try {
+                setter.invokeExact(model, value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Unable to write relation: " + name, e);
+            }
+        }
+    }
+}
@@ -2,12 +2,9 @@ package uk.co.bjdavies.db;
 
 
 import uk.co.bjdavies.api.db.*;
-import uk.co.bjdavies.api.db.fields.PrimaryField;
 import uk.co.bjdavies.db.Table.ModelBlueprint;
 import uk.co.bjdavies.db.Table.TableBuilder;
 
-import java.lang.reflect.Field;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,20 +25,17 @@ public class ModelUtils {
     }
 
     public static <T extends Model> void createTable(Class<T> clazz) {
+        String tableName = getTableName(clazz);
         //noinspection unchecked
-        DB.createTableIfItDoesntExist(getSchema(getTableName(clazz), (Class<Model>) clazz));
+        DB.schema().ensure(tableName, () -> getSchema(tableName, (Class<Model>) clazz));
     }
 
     public static <T extends Model> String getTableName(Class<T> clazz) {
-        return Arrays.stream(clazz.getDeclaredConstructors()).filter(c -> c.isAnnotationPresent(TableName.class))
-                .map(c -> c.getAnnotation(TableName.class).name()).findAny()
-                .orElse(pluralize(clazz.getSimpleName())).toLowerCase();
+        return ModelMetadata.of(clazz).getTableName();
     }
 
     public static <T extends Model> String getPrimaryKey(Class<T> clazz) {
-        return Arrays.stream(clazz.getDeclaredFields()).filter(c -> c.isAnnotationPresent(PrimaryField.class))
-                .map(Field::getName).findAny()
-                .orElse("id").toLowerCase();
+        return ModelMetadata.of(clazz).getPrimaryKey().toLowerCase();
     }
 
 
@@ -2,12 +2,21 @@ package uk.co.bjdavies.db;
 
 import lombok.SneakyThrows;
 import lombok.extern.log4j.Log4j2;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import uk.co.bjdavies.api.db.*;
+import uk.co.bjdavies.db.impl.ModelRowMapper;
 
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * @author ben.davies99@outlook.com (Ben Davies)
@@ -19,8 +28,22 @@ public abstract class QueryBuilder<T extends IDBRecord> extends BaseBuilder impl
     protected int limit = -1;
     protected String orderColumn = "";
     protected boolean reverseOrder = false;
+    /**
+     * This is the column and the value the rows must come after, null if the query isn't paged.
+     */
+    protected String afterColumn = null;
+    protected String afterValue = null;
+    /**
+     * These are the tables joined to the query in the order they were joined.
+     */
+    protected final List<Join> joins = new ArrayList<>();
     private Class<T> mapToModel;
 
+    /**
+     * This is how many rows a cursor fetches at a time if it isn't told.
+     */
+    private static final int DEFAULT_FETCH_SIZE = 256;
+
     public QueryBuilder(String primaryKey, String tableName, IConnection connection) {
         super(primaryKey, tableName, connection);
     }
@@ -33,15 +56,110 @@ public abstract class QueryBuilder<T extends IDBRecord> extends BaseBuilder impl
     @SneakyThrows
     @Override
     public List<T> get(String... columns) {
-        select(columns);
+        selectForModel(columns);
+        if (isInMemory()) {
+            ModelMetadata metadata = ModelMetadata.of(mapToModel);
+            List<T> models = new ArrayList<>();
+            for (Map<String, Object> row : selectInMemory(limit)) {
+                models.add(metadata.newInstance(row));
+            }
+            return models;
+        }
+        String cachedColumn = cachedColumn();
+        if (cachedColumn != null) {
+            return DB.modelCache().get(mapToModel, cachedColumn, whereStatement.getValue(), limit, this::query);
+        }
+        return query();
+    }
+
+    private List<T> query() throws Exception {
+        if (isChunked()) {
+            if (!orderColumn.equals("") || afterColumn != null) {
+                throw new IllegalStateException("A query on " + tableName + " with an IN list of more than " +
+                        MAX_IN_VALUES + " values can't be ordered or paged, it is ran in chunks.");
+            }
+            return queryChunks();
+        }
+        return queryOnce();
+    }
+
+    /**
+     * This will run the query once for each chunk of its IN list, leaving out any row an earlier chunk returned so the
+     * rows are distinct like they are from one query. Each chunk is limited too, so the rows are only cut down to the
+     * limit at the end.
+     *
+     * @return List
+     * @throws Exception if the query fails.
+     */
+    private List<T> queryChunks() throws Exception {
+        List<T> rows = new ArrayList<>();
+        if (!chunksOverlap()) {
+            eachChunk(this::queryOnce).forEach(rows::addAll);
+        } else {
+            Set<Map<String, Object>> seen = new HashSet<>();
+            for (List<T> chunk : eachChunk(this::queryOnce)) {
+                for (T row : chunk) {
+                    if (seen.add(row.getData())) {
+                        rows.add(row);
+                    }
+                }
+            }
+        }
+        return limit == -1 || rows.size() <= limit ? rows : new ArrayList<>(rows.subList(0, limit));
+    }
+
+    private List<T> queryOnce() throws SQLException {
         if (mapToModel == null) {
             return connection.executeQuery(this);
+        } else if (ModelRowMapper.supports(mapToModel)) {
+            return connection.executeQuery(this, new ModelRowMapper<>(mapToModel));
         } else {
+            return covertListToModels(connection.executeQuery(this));
+        }
+    }
+
+    /**
+     * This checks whether the query can be answered from the model's table in memory, which is only when the query
+     * has no where or a single column equals a value in the default order outside of a transaction.
+     *
+     * @return boolean
+     */
+    private boolean isInMemory() {
+        if (mapToModel == null || !orderColumn.equals("") || afterColumn != null || !joins.isEmpty() ||
+                DB.inTransaction() || !DB.inMemoryTables().isInMemory(mapToModel)) {
+            return false;
+        }
+        return whereStatement == null ||
+                (whereStatement.getGroup().isEmpty() && whereStatement.getComparator() == Comparator.EQUALS);
+    }
+
+    private List<Map<String, Object>> selectInMemory(int limit) {
+        return DB.inMemoryTables().select(mapToModel, whereStatement == null ? null : whereStatement.getKey(),
+                whereStatement == null ? null : whereStatement.getValue(), limit);
+    }
+
+    /**
+     * This will return the column the query looks the model up by if the lookup can be cached, which is only when
+     * the query is a single column equals a value in the default order outside of a transaction.
+     *
+     * @return String or null if the query can't be cached.
+     */
+    private String cachedColumn() {
+        if (mapToModel == null || whereStatement == null || !whereStatement.getGroup().isEmpty() ||
+                whereStatement.getComparator() != Comparator.EQUALS || !orderColumn.equals("") || afterColumn != null ||
+                !joins.isEmpty() || DB.inTransaction()) {
+            return null;
+        }
+        return DB.modelCache().isCached(mapToModel, whereStatement.getKey()) ? whereStatement.getKey() : null;
+    }
+
+    private void selectForModel(String... columns) {
+        select(columns);
+        if (mapToModel != null) {
             if (!Arrays.asList(this.selectColumns).contains("*")) {
                 log.warn("For models you need to select all column or you  will get runtime errors. Changing back to *");
             }
             select("*");
-            return covertListToModels(connection.executeQuery(this));
         }
     }
 
@@ -49,18 +167,116 @@ public abstract class QueryBuilder<T extends IDBRecord> extends BaseBuilder impl
         List<T> models = new ArrayList<>();
 
         for (T t : executeQuery) {
-            try {
-                T model = mapToModel.getDeclaredConstructor().newInstance();
-                model.setData(t.getData());
+            T model = convertToModel(t);
+            if (model != null) {
                 models.add(model);
-            } catch (Exception e) {
-                log.error("Unable to map model", e);
             }
         }
 
         return models;
     }
 
+    private T convertToModel(T record) {
+        try {
+            T model = ModelMetadata.of(mapToModel).newInstance();
+            model.setData(record.getData());
+            return model;
+        } catch (Exception e) {
+            log.error("Unable to map model", e);
+            return null;
+        }
+    }
+
+    @Override
+    public Flux<T> stream() {
+        return stream("*");
+    }
+
+    @Override
+    public Flux<T> stream(String... columns) {
+        selectForModel(columns);
+        if (mapToModel != null && ModelRowMapper.supports(mapToModel)) {
+            return connection.streamQuery(this, new ModelRowMapper<>(mapToModel));
+        }
+        Flux<T> rows = connection.streamQuery(this);
+        if (mapToModel == null) {
+            return rows;
+        }
+        return rows.<T>flatMapIterable(row -> {
+            T model = convertToModel(row);
+            return model == null ? Collections.emptyList() : Collections.singletonList(model);
+        });
+    }
+
+    @Override
+    public ICursor<T> cursor() {
+        return cursor(DEFAULT_FETCH_SIZE);
+    }
+
+    @SneakyThrows
+    @Override
+    public ICursor<T> cursor(int fetchSize) {
+        selectForModel("*");
+        if (mapToModel == null) {
+            return connection.cursor(this, fetchSize);
+        } else if (ModelRowMapper.supports(mapToModel)) {
+            return connection.cursor(this, new ModelRowMapper<>(mapToModel), fetchSize);
+        }
+        ICursor<T> rows = connection.cursor(this, fetchSize);
+        return new ICursor<T>() {
+            @Override
+            public boolean hasNext() {
+                return rows.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return convertToModel(rows.next());
+            }
+
+            @Override
+            public void close() {
+                rows.close();
+            }
+        };
+    }
+
+    @Override
+    public Mono<List<T>> getAsync() {
+        return getAsync("*");
+    }
+
+    @Override
+    public Mono<List<T>> getAsync(String... columns) {
+        return stream(columns).collectList();
+    }
+
+    @Override
+    public Mono<T> firstAsync() {
+        return firstAsync("*");
+    }
+
+    @Override
+    public Mono<T> firstAsync(String... columns) {
+        limit(1);
+        return stream(columns).next();
+    }
+
+    @Override
+    public Mono<Integer> countAsync() {
+        return Mono.fromCallable(this::count).subscribeOn(DB.scheduler());
+    }
+
+    @Override
+    public Mono<Boolean> existsAsync() {
+        return Mono.fromCallable(this::exists).subscribeOn(DB.scheduler());
+    }
+
+    @Override
+    public Mono<Boolean> doesntExistAsync() {
+        return existsAsync().map(exists -> !exists);
+    }
+
     @Override
     public List<T> get() {
         return get("*");
@@ -108,6 +324,36 @@ public abstract class QueryBuilder<T extends IDBRecord> extends BaseBuilder impl
         return (IQueryBuilder<T>) super.or(statement);
     }
 
+    @Override
+    public IQueryBuilder<T> whereIn(String key, Collection<?> values) {
+        //noinspection unchecked
+        return (IQueryBuilder<T>) super.whereIn(key, values);
+    }
+
+    @Override
+    public IQueryBuilder<T> whereNotIn(String key, Collection<?> values) {
+        //noinspection unchecked
+        return (IQueryBuilder<T>) super.whereNotIn(key, values);
+    }
+
+    @Override
+    public IQueryBuilder<T> between(String key, Object low, Object high) {
+        //noinspection unchecked
+        return (IQueryBuilder<T>) super.between(key, low, high);
+    }
+
+    @Override
+    public IQueryBuilder<T> whereNull(String key) {
+        //noinspection unchecked
+        return (IQueryBuilder<T>) super.whereNull(key);
+    }
+
+    @Override
+    public IQueryBuilder<T> whereNotNull(String key) {
+        //noinspection unchecked
+        return (IQueryBuilder<T>) super.whereNotNull(key);
+    }
+
     @Override
     public Optional<T> find(int id) {
         return find(id, "*");
@@ -151,20 +397,55 @@ public abstract class QueryBuilder<T extends IDBRecord> extends BaseBuilder impl
         return this;
     }
 
+    @Override
+    public IQueryBuilder<T> after(String column, Object lastValue) {
+        this.afterColumn = column;
+        this.afterValue = String.valueOf(lastValue);
+        this.orderColumn = column;
+        return this;
+    }
+
+    @Override
+    public IQueryBuilder<T> join(String table, String alias, String column, String onColumn) {
+        this.joins.add(new Join(table, alias, column, onColumn));
+        return this;
+    }
+
     @Override
     public IQueryBuilder<T> select(String... columns) {
         this.selectColumns = columns;
         return this;
     }
 
+    @SneakyThrows
     @Override
     public int count() {
-        return get().size();
+        select("*");
+        if (isInMemory()) {
+            return selectInMemory(limit).size();
+        }
+        if (isChunked()) {
+            if (chunksOverlap()) {
+                return queryChunks().size();
+            }
+            int count = eachChunk(() -> connection.executeScalar(buildCountStatement())).stream()
+                    .mapToInt(Long::intValue).sum();
+            return limit == -1 ? count : Math.min(limit, count);
+        }
+        return (int) connection.executeScalar(buildCountStatement());
     }
 
+    @SneakyThrows
     @Override
     public boolean exists() {
-        return count() > 0;
+        select("*");
+        if (isInMemory()) {
+            return !selectInMemory(1).isEmpty();
+        }
+        if (isChunked()) {
+            return eachChunk(() -> connection.executeScalar(buildExistsStatement())).stream().anyMatch(e -> e != 0);
+        }
+        return connection.executeScalar(buildExistsStatement()) != 0;
     }
 
     @Override
@@ -172,5 +453,58 @@ public abstract class QueryBuilder<T extends IDBRecord> extends BaseBuilder impl
         return !exists();
     }
 
-    public abstract String buildQuery();
+    @Override
+    public String buildQuery() {
+        return buildStatement().getSQL();
+    }
+
+    public abstract ISQLCommand buildStatement();
+
+    /**
+     * This will build a query that returns the number of rows {@link #buildStatement()} would return as its only
+     * value.
+     *
+     * @return ISQLCommand
+     */
+    protected abstract ISQLCommand buildCountStatement();
+
+    /**
+     * This will build a query that returns 1 if {@link #buildStatement()} would return any rows, 0 otherwise.
+     *
+     * @return ISQLCommand
+     */
+    protected abstract ISQLCommand buildExistsStatement();
+
+    /**
+     * This is a table joined to the query, see {@link #join(String, String, String, String)}.
+     */
+    protected static final class Join {
+        private final String table;
+        private final String alias;
+        private final String column;
+        private final String onColumn;
+
+        private Join(String table, String alias, String column, String onColumn) {
+            this.table = table;
+            this.alias = alias;
+            this.column = column;
+            this.onColumn = onColumn;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public String getAlias() {
+            return alias;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        public String getOnColumn() {
+            return onColumn;
+        }
+    }
 }
@@ -0,0 +1,78 @@
+package uk.co.bjdavies.db;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * These are the columns of a result set, it is made once per query and shared by all of its {@link CompactRecord}s
+ * so each row only has to hold its values.
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+public final class RowSchema {
+
+    private final String[] columnNames;
+    private final Map<String, Integer> indexes;
+
+    public RowSchema(String... columnNames) {
+        this.columnNames = columnNames.clone();
+        this.indexes = new HashMap<>(columnNames.length * 2);
+        for (int i = columnNames.length - 1; i >= 0; i--) {
+            indexes.put(columnNames[i], i);
+        }
+    }
+
+    /**
+     * This will make the schema of the result set.
+     *
+     * @param resultSet - The result set.
+     * @return RowSchema
+     * @throws SQLException if the columns cannot be read.
+     */
+    public static RowSchema of(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        String[] columnNames = new String[metaData.getColumnCount()];
+        for (int i = 0; i < columnNames.length; i++) {
+            columnNames[i] = metaData.getColumnName(i + 1);
+        }
+        return new RowSchema(columnNames);
+    }
+
+    /**
+     * This will return the index of the column, if the name doesn't match exactly it is matched ignoring case.
+     *
+     * @param columnName - The name of the column.
+     * @return int - The index of the column or -1 if there isn't one.
+     */
+    public int indexOf(String columnName) {
+        Integer index = indexes.get(columnName);
+        if (index != null) {
+            return index;
+        }
+        for (int i = 0; i < columnNames.length; i++) {
+            if (columnNames[i].equalsIgnoreCase(columnName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int size() {
+        return columnNames.length;
+    }
+
+    public String getColumnName(int index) {
+        return columnNames[index];
+    }
+
+    public List<String> getColumnNames() {
+        return Collections.unmodifiableList(Arrays.asList(columnNames));
+    }
+}
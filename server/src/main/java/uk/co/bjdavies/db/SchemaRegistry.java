@@ -0,0 +1,143 @@
+package uk.co.bjdavies.db;
+
+import lombok.extern.log4j.Log4j2;
+import uk.co.bjdavies.api.db.IConnection;
+import uk.co.bjdavies.api.db.IDBRecord;
+import uk.co.bjdavies.db.Table.TableBuilder;
+import uk.co.bjdavies.db.impl.SQLCommand;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * This keeps track of which tables exist in the database so queries don't have to check before they run.
+ * <p>
+ * Each table is looked up in sqlite_master once, either when {@link #load()} reads them all at startup or the first
+ * time it is asked about, and the answer is kept until it is invalidated. Anything that drops or renames a table
+ * outside of this registry must call {@link #invalidate(String)}.
+ * </p>
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+@Log4j2
+public final class SchemaRegistry {
+
+    private static final String TABLE_EXISTS =
+            "SELECT COUNT(*) FROM sqlite_master WHERE type = 'table' AND name = ? COLLATE NOCASE";
+
+    private final IConnection connection;
+
+    /**
+     * This is whether each table exists keyed by its lowercase name, tables that haven't been looked up are missing.
+     */
+    private final Map<String, Boolean> tables = new ConcurrentHashMap<>();
+
+    /**
+     * These are the lowercase names of the tables that have been created and had their indexes created.
+     */
+    private final Set<String> reconciled = ConcurrentHashMap.newKeySet();
+
+    public SchemaRegistry(IConnection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * This will read every table in the database so none of them have to be looked up later.
+     */
+    public void load() {
+        try {
+            for (IDBRecord record : connection.<IDBRecord>createQueryBuilder("sqlite_master", "name")
+                    .where("type", "table").get("name")) {
+                tables.put(key(record.getString("name")), true);
+            }
+        } catch (Exception e) {
+            log.error("Unable to read the tables in the database.", e);
+        }
+    }
+
+    /**
+     * This checks whether the table exists, the database is only asked the first time.
+     *
+     * @param tableName - The name of the table.
+     * @return boolean
+     */
+    public boolean exists(String tableName) {
+        return Boolean.TRUE.equals(tables.computeIfAbsent(key(tableName), this::lookup));
+    }
+
+    /**
+     * This will create the table if it doesn't exist, the first time a table is ensured its indexes are created too
+     * if they don't exist so tables made before an index was declared get it.
+     *
+     * @param tableName - The name of the table.
+     * @param schema    - This makes the schema of the table, it is only called the first time the table is ensured.
+     */
+    public void ensure(String tableName, Supplier<TableBuilder> schema) {
+        String key = key(tableName);
+        if (reconciled.contains(key)) {
+            return;
+        }
+
+        synchronized (this) {
+            if (reconciled.contains(key)) {
+                return;
+            }
+            TableBuilder tableBuilder = schema.get();
+            try {
+                if (!exists(tableName)) {
+                    connection.execute(tableBuilder.build());
+                    tables.put(key, true);
+                }
+                for (String index : tableBuilder.buildIndexes()) {
+                    connection.execute(index);
+                }
+                reconciled.add(key);
+            } catch (Exception e) {
+                log.error("Unable to create table:" + tableBuilder.getTableName(), e);
+            }
+        }
+    }
+
+    /**
+     * This will forget what is known about the table so it is looked up again the next time it is used.
+     *
+     * @param tableName - The name of the table.
+     */
+    public void invalidate(String tableName) {
+        tables.remove(key(tableName));
+        reconciled.remove(key(tableName));
+    }
+
+    /**
+     * This will forget every table.
+     */
+    public void invalidateAll() {
+        tables.clear();
+        reconciled.clear();
+    }
+
+    /**
+     * This will ask the database if the table exists.
+     *
+     * @param key - The lowercase name of the table.
+     * @return Boolean or null if the database couldn't be asked, so it is asked again next time.
+     */
+    private Boolean lookup(String key) {
+        try {
+            return connection.executeScalar(new SQLCommand(TABLE_EXISTS, Collections.singletonList(key))) > 0;
+        } catch (SQLException e) {
+            log.error("Unable to check if the table exists: " + key, e);
+            return null;
+        }
+    }
+
+    private static String key(String tableName) {
+        return tableName.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,123 @@
+package uk.co.bjdavies.db;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This keeps the most recently used prepared statements of a single connection so the same SQL isn't parsed and
+ * planned by the database every time it's ran. Statements that fall out of the cache are closed.
+ * <p>
+ * A statement that is running a query is lent out until the query has been read, if the same SQL is queried again
+ * before then e.g. by a nested read inside a transaction it gets a new statement so the first query's result set isn't
+ * closed under it.
+ * </p>
+ * <p>
+ * It isn't thread safe, it relies on the {@link ConnectionPool} only ever giving its connection to one thread at a time.
+ * </p>
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+@Log4j2
+final class StatementCache {
+
+    private final Connection connection;
+
+    private final Map<String, PreparedStatement> statements;
+
+    /**
+     * These are the cached statements whose query is still being read.
+     */
+    private final Set<PreparedStatement> lent = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    StatementCache(Connection connection, int maximumSize) {
+        this.connection = connection;
+        this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > maximumSize) {
+                    if (!lent.contains(eldest.getValue())) {
+                        // a lent statement is closed once it is given back
+                        close(eldest.getValue());
+                    }
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * This will return the cached statement for the SQL, preparing it if it isn't cached.
+     *
+     * @param sql - The SQL of the statement.
+     * @return PreparedStatement - It must not be closed by the caller.
+     * @throws SQLException if the statement cannot be prepared.
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null || statement.isClosed()) {
+            statement = connection.prepareStatement(sql);
+            statements.put(sql, statement);
+        } else {
+            statement.clearParameters();
+            statement.clearBatch();
+        }
+        return statement;
+    }
+
+    /**
+     * This will lend out the statement for the SQL to run a query, it has to be given back with
+     * {@link #release(PreparedStatement)} once the result set has been closed.
+     *
+     * @param sql - The SQL of the query.
+     * @return PreparedStatement - The cached statement or a new one if the cached one is still lent out.
+     * @throws SQLException if the statement cannot be prepared.
+     */
+    PreparedStatement lend(String sql) throws SQLException {
+        PreparedStatement cached = statements.get(sql);
+        if (cached != null && lent.contains(cached)) {
+            return connection.prepareStatement(sql);
+        }
+        PreparedStatement statement = prepare(sql);
+        lent.add(statement);
+        return statement;
+    }
+
+    /**
+     * This will give back a statement from {@link #lend(String)}, it is closed if it isn't cached.
+     *
+     * @param statement - The statement.
+     */
+    void release(PreparedStatement statement) {
+        lent.remove(statement);
+        if (!statements.containsValue(statement)) {
+            close(statement);
+        }
+    }
+
+    /**
+     * This will close every cached statement.
+     */
+    void clear() {
+        statements.values().forEach(this::close);
+        statements.clear();
+        lent.clear();
+    }
+
+    private void close(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            log.error("Unable to close a cached statement", e);
+        }
+    }
+}
@@ -23,6 +23,10 @@ public abstract class Blueprint {
      * This will hold all the fields that require to be unique.
      */
     private final List<String> uniqueCols = new ArrayList<>();
+    /**
+     * This will hold all the indexes of the table.
+     */
+    private final List<TableIndex> indexes = new ArrayList<>();
     /**
      * This will hold which field is the primary key.
      */
@@ -104,6 +108,50 @@ public abstract class Blueprint {
     }
 
 
+    /**
+     * This adds an index on the fields specified.
+     *
+     * @param fieldNames - The names of the fields in the index in order.
+     * @return TableIndex
+     */
+    public TableIndex index(String... fieldNames) {
+        return index("", false, fieldNames);
+    }
+
+    /**
+     * This adds an index that only allows each value once on the fields specified.
+     *
+     * @param fieldNames - The names of the fields in the index in order.
+     * @return TableIndex
+     */
+    public TableIndex uniqueIndex(String... fieldNames) {
+        return index("", true, fieldNames);
+    }
+
+    /**
+     * This adds an index on the fields specified.
+     *
+     * @param name       - The name of the index or empty to make one from the table and the fields.
+     * @param unique     - Does the index only allow each value once?
+     * @param fieldNames - The names of the fields in the index in order.
+     * @return TableIndex
+     */
+    public TableIndex index(String name, boolean unique, String... fieldNames) {
+        TableIndex index = new TableIndex(name, unique, fieldNames);
+        indexes.add(index);
+        return index;
+    }
+
+    /**
+     * This will return the indexes of the table.
+     *
+     * @return List
+     */
+    public List<TableIndex> getIndexes() {
+        return Collections.unmodifiableList(indexes);
+    }
+
+
     /**
      * This will return the description of the new table.
      *
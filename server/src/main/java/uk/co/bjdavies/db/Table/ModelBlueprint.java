@@ -1,12 +1,8 @@
 package uk.co.bjdavies.db.Table;
 
 import uk.co.bjdavies.api.db.Model;
-import uk.co.bjdavies.api.db.fields.IntField;
-import uk.co.bjdavies.api.db.fields.PrimaryField;
-import uk.co.bjdavies.api.db.fields.StringField;
-import uk.co.bjdavies.api.db.fields.Unique;
-
-import java.util.Arrays;
+import uk.co.bjdavies.api.db.fields.CompositeIndex;
+import uk.co.bjdavies.db.ModelMetadata;
 
 /**
  * @author ben.davies99@outlook.com (Ben Davies)
@@ -22,29 +18,34 @@ public class ModelBlueprint extends Blueprint {
 
     @Override
     public void setup() {
-        Arrays.stream(this.modelClass.getDeclaredFields()).forEach(f -> {
-            if (f.isAnnotationPresent(IntField.class) && (!f.isAnnotationPresent(PrimaryField.class)
-                    || !f.getAnnotation(PrimaryField.class).increments())) {
-                IntField field = f.getAnnotation(IntField.class);
-                this.integer(f.getName()).defaultValue(field.defaultValue() == -1 ? null : field.defaultValue())
-                        .setNullable(field.nullable());
-            } else if (f.isAnnotationPresent(StringField.class)) {
-                StringField field = f.getAnnotation(StringField.class);
-                this.string(f.getName(), field.charLimit())
-                        .defaultValue(field.defaultValue().equals("") ? null : field.defaultValue())
-                        .setNullable(field.nullable());
+        ModelMetadata.of(this.modelClass).getColumns().forEach(c -> {
+            if (c.getType() == ModelMetadata.Column.Type.INT && (!c.isPrimary() || !c.isPrimaryIncrements())) {
+                this.integer(c.getName()).defaultValue((Integer) c.getDefaultValue())
+                        .setNullable(c.isNullable());
+            } else if (c.getType() == ModelMetadata.Column.Type.STRING) {
+                this.string(c.getName(), c.getCharLimit())
+                        .defaultValue((String) c.getDefaultValue())
+                        .setNullable(c.isNullable());
+            }
+
+            if (c.isPrimary() && c.getType() == ModelMetadata.Column.Type.INT) {
+                this.increments(c.getName());
+                this.primaryKey(c.getName());
+            } else if (c.isPrimary()) {
+                this.primaryKey(c.getName());
             }
 
-            if (f.isAnnotationPresent(PrimaryField.class) && f.isAnnotationPresent(IntField.class)) {
-                this.increments(f.getName());
-                this.primaryKey(f.getName());
-            } else if (f.isAnnotationPresent(PrimaryField.class)) {
-                this.primaryKey(f.getName());
+            if (c.isUnique()) {
+                this.uniqueKeys(c.getName());
             }
 
-            if (f.isAnnotationPresent(Unique.class)) {
-                this.uniqueKeys(f.getName());
+            if (c.getIndex() != null) {
+                this.index(c.getIndex().name(), c.getIndex().unique(), c.getName());
             }
         });
+
+        for (CompositeIndex index : ModelMetadata.of(this.modelClass).getCompositeIndexes()) {
+            this.index(index.name(), index.unique(), index.columns());
+        }
     }
 }
@@ -2,6 +2,9 @@ package uk.co.bjdavies.db.Table;
 
 import lombok.Getter;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 /**
  * BabbleBot, open-source Discord Bot
  * Licence: GPL V3
@@ -24,6 +27,11 @@ public class TableBuilder {
     @Getter
     Blueprint blueprint;
 
+    /**
+     * This determines if the blueprint has described the table yet.
+     */
+    private boolean setup = false;
+
     /**
      * The builder is constructed.
      *
@@ -41,7 +49,24 @@ public class TableBuilder {
      * @return String
      */
     public String build() {
-        blueprint.setup();
+        setup();
         return "CREATE TABLE " + tableName + "(" + blueprint + ")";
     }
+
+    /**
+     * This will generate an SQL statement for each index to create it if it doesn't exist.
+     *
+     * @return List
+     */
+    public List<String> buildIndexes() {
+        setup();
+        return blueprint.getIndexes().stream().map(i -> i.build(tableName)).collect(Collectors.toList());
+    }
+
+    private void setup() {
+        if (!setup) {
+            blueprint.setup();
+            setup = true;
+        }
+    }
 }
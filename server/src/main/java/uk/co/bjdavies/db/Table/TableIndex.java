@@ -0,0 +1,74 @@
+package uk.co.bjdavies.db.Table;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This describes an index on one or more columns of a table.
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+public class TableIndex {
+
+    /**
+     * This is the name of the index, if it is empty the name is made from the table and the columns.
+     */
+    private final String name;
+
+    /**
+     * This determines if the index only allows each value once.
+     */
+    private final boolean unique;
+
+    /**
+     * These are the columns of the index in order.
+     */
+    private final List<String> columns;
+
+    /**
+     * This will construct an index.
+     *
+     * @param name    - The name of the index or empty to make one.
+     * @param unique  - Does the index only allow each value once?
+     * @param columns - The columns of the index in order.
+     */
+    public TableIndex(String name, boolean unique, String... columns) {
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("An index needs at least one column.");
+        }
+        this.name = name;
+        this.unique = unique;
+        this.columns = Collections.unmodifiableList(Arrays.asList(columns));
+    }
+
+    public boolean isUnique() {
+        return unique;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * This will return the name of the index on the table.
+     *
+     * @param tableName - The name of the table.
+     * @return String
+     */
+    public String getName(String tableName) {
+        return name.isEmpty() ? "idx_" + tableName + "_" + String.join("_", columns) : name;
+    }
+
+    /**
+     * This will generate an SQL statement to create the index if it doesn't exist.
+     *
+     * @param tableName - The name of the table.
+     * @return String
+     */
+    public String build(String tableName) {
+        return "CREATE " + (unique ? "UNIQUE " : "") + "INDEX IF NOT EXISTS " + getName(tableName) + " ON " +
+                tableName + " (" + String.join(",", columns) + ")";
+    }
+}
@@ -0,0 +1,205 @@
+package uk.co.bjdavies.db;
+
+import lombok.extern.log4j.Log4j2;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This holds the deferred saves of models, see {@link uk.co.bjdavies.api.db.WriteBehind}.
+ * <p>
+ * The saves are kept by table and primary key and a model that is saved again before it has been written is only
+ * written once, with the values it had when it was last saved. Everything waiting is written in a single transaction
+ * when there are too many saves waiting, when the flush interval has passed or when {@link #flush()} is called, which
+ * the application does before it shuts down or restarts and after a plugin is shut down. Only one flush runs at a
+ * time so an older save of a row can never be written after a newer one.
+ * </p>
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+@Log4j2
+public final class WriteBehindQueue {
+
+    private final Scheduler scheduler;
+    private final int maxPending;
+    private final Disposable timer;
+
+    /**
+     * These are the saves waiting to be written keyed by the lowercase table name and the primary key, there is more
+     * than one for a key only if different instances of the same row have been saved.
+     */
+    private final Map<List<Object>, List<Pending>> pending = new LinkedHashMap<>();
+    private int size;
+    /**
+     * This is held for the whole of a flush, from taking the saves to writing them, so flushes never overlap.
+     */
+    private final Object flushLock = new Object();
+    /**
+     * This is true once the queue has been closed, the flushes scheduled before then do nothing. It is guarded by
+     * {@link #flushLock}.
+     */
+    private boolean closed;
+
+    public WriteBehindQueue(Scheduler scheduler, int maxPending, long flushInterval) {
+        this.scheduler = scheduler;
+        this.maxPending = maxPending;
+        this.timer = scheduler.schedulePeriodically(this::flush, flushInterval, flushInterval,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * This will defer the save of the model until the next flush, if the model is already waiting to be written the
+     * new save replaces the old one.
+     *
+     * @param tableName - The name of the model's table.
+     * @param key       - The primary key of the model.
+     * @param model     - The model, it is only written once however many times it is deferred.
+     * @param save      - This writes the model as it was when it was deferred.
+     */
+    public void enqueue(String tableName, Object key, Object model, DeferredSave save) {
+        boolean full;
+        synchronized (this) {
+            full = add(Arrays.asList(tableName.toLowerCase(Locale.ROOT), key), new Pending(model, save), true) &&
+                    size >= maxPending;
+        }
+        if (full) {
+            scheduler.schedule(this::flush);
+        }
+    }
+
+    /**
+     * This will add the save to the queue.
+     *
+     * @param key     - The lowercase table name and primary key.
+     * @param save    - The save.
+     * @param replace - true if the save is newer than the one waiting for the same model, if any.
+     * @return boolean - true if the queue got bigger.
+     */
+    private boolean add(List<Object> key, Pending save, boolean replace) {
+        List<Pending> saves = pending.computeIfAbsent(key, k -> new ArrayList<>(1));
+        for (int i = 0; i < saves.size(); i++) {
+            if (saves.get(i).model == save.model) {
+                if (replace) {
+                    saves.set(i, save);
+                }
+                return false;
+            }
+        }
+        saves.add(save);
+        size++;
+        return true;
+    }
+
+    /**
+     * This is how many saves are waiting to be written.
+     *
+     * @return int
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * This will write every save that is waiting in a single transaction. If the transaction fails each save is tried
+     * again in a transaction of its own so one bad save doesn't hold the rest back, the saves that still fail are put
+     * back in the queue for the next flush unless the model has been saved again since. If another flush is running
+     * this waits for it to finish.
+     *
+     * @return int - The number of saves written.
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            return closed ? 0 : write();
+        }
+    }
+
+    private int write() {
+        Map<List<Object>, List<Pending>> writes;
+        synchronized (this) {
+            if (size == 0) {
+                return 0;
+            }
+            writes = new LinkedHashMap<>(pending);
+            pending.clear();
+            size = 0;
+        }
+
+        List<Pending> saves = new ArrayList<>();
+        writes.values().forEach(saves::addAll);
+        try {
+            DB.transaction(transaction -> saves.forEach(save -> save.save.write()));
+            saves.forEach(save -> save.save.committed());
+            return saves.size();
+        } catch (Exception e) {
+            log.error("Unable to write " + saves.size() + " deferred saves together, writing them one at a time.", e);
+        }
+
+        int written = 0;
+        for (Map.Entry<List<Object>, List<Pending>> entry : writes.entrySet()) {
+            for (Pending save : entry.getValue()) {
+                try {
+                    DB.transaction(transaction -> save.save.write());
+                    save.save.committed();
+                    written++;
+                } catch (Exception e) {
+                    log.error("Unable to write the deferred save of " + entry.getKey() + ", it will be tried again.",
+                            e);
+                    synchronized (this) {
+                        add(entry.getKey(), save, false);
+                    }
+                }
+            }
+        }
+        return written;
+    }
+
+    /**
+     * This will stop the flush interval and write every save that is waiting, waiting for a flush that is already
+     * running to finish first. Nothing is written by the queue once it has been closed.
+     */
+    public void close() {
+        timer.dispose();
+        synchronized (flushLock) {
+            if (!closed) {
+                write();
+                closed = true;
+            }
+        }
+    }
+
+    /**
+     * This is a save that has been deferred, it holds the values the model had when it was saved so it can be
+     * written on any thread.
+     */
+    public interface DeferredSave {
+
+        /**
+         * This will write the save, it is called inside the flush transaction and has to throw if the write failed
+         * so the transaction is rolled back.
+         */
+        void write();
+
+        /**
+         * This is called once the transaction the save was written in has been committed.
+         */
+        void committed();
+    }
+
+    private static final class Pending {
+        private final Object model;
+        private final DeferredSave save;
+
+        private Pending(Object model, DeferredSave save) {
+            this.model = model;
+            this.save = save;
+        }
+    }
+}
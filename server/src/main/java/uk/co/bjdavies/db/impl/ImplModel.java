@@ -3,19 +3,16 @@ package uk.co.bjdavies.db.impl;
 import lombok.extern.slf4j.Slf4j;
 import uk.co.bjdavies.api.db.Comparator;
 import uk.co.bjdavies.api.db.*;
-import uk.co.bjdavies.api.db.fields.IntField;
-import uk.co.bjdavies.api.db.fields.PrimaryField;
-import uk.co.bjdavies.api.db.fields.Protected;
-import uk.co.bjdavies.api.db.fields.StringField;
-import uk.co.bjdavies.api.db.methods.BelongsTo;
-import uk.co.bjdavies.api.db.methods.HasMany;
 import uk.co.bjdavies.db.DB;
 import uk.co.bjdavies.db.DBRecord;
+import uk.co.bjdavies.db.JsonWriter;
+import uk.co.bjdavies.db.ModelMetadata;
 import uk.co.bjdavies.db.ModelUtils;
+import uk.co.bjdavies.db.WriteBehindQueue;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.*;
 
 /**
@@ -27,12 +24,39 @@ import java.util.*;
 public class ImplModel extends Model {
 
     private final DBRecord record;
+    private final ModelMetadata metadata = ModelMetadata.of(getClass());
     protected String primaryKey;
     protected String tableName = ModelUtils.getTableName(getClass());
     protected String[] protected_fields;
     private boolean increments = true;
     private String saveType = "create";
     private Map<String, Model> parents;
+    /**
+     * This is true when the fields were hydrated straight from a row so the record has to be made from them.
+     */
+    private boolean recordStale = false;
+    /**
+     * These are the columns of the row that the model has no field for, null if there were none.
+     */
+    private Map<String, Object> extraColumns;
+    /**
+     * These are the values of the fields as they were loaded or last saved in the order of
+     * {@link ModelMetadata#getColumns()}, null if the model isn't in the database yet. Deferred saves set it from the
+     * flush thread so it is only changed through {@link #commitOriginal(long, Object[])}.
+     */
+    private volatile Object[] original;
+    /**
+     * This is the version of the last save taken, see {@link #nextVersion()}.
+     */
+    private long version;
+    /**
+     * This is the version of the save {@link #original} was last set from.
+     */
+    private long committedVersion;
+    /**
+     * These are the names of the relations that haven't been loaded yet.
+     */
+    private final Set<String> pendingRelations = new HashSet<>();
 
     protected ImplModel() {
         record = new DBRecord(new HashMap<>());
@@ -70,147 +94,367 @@ public class ImplModel extends Model {
     }
 
     private void setupFields() {
-        this.primaryKey = Arrays.stream(this.getClass().getDeclaredFields()).filter(f ->
-                f.isAnnotationPresent(PrimaryField.class)).map(Field::getName).findAny().orElse("id");
-        this.increments = Arrays.stream(this.getClass().getDeclaredFields()).anyMatch(f ->
-                f.isAnnotationPresent(PrimaryField.class) && f.isAnnotationPresent(IntField.class));
-        this.protected_fields = Arrays.stream(this.getClass().getDeclaredFields()).filter(f ->
-                f.isAnnotationPresent(Protected.class)).map(Field::getName).toArray(String[]::new);
+        this.primaryKey = metadata.getPrimaryKey();
+        this.increments = metadata.isIncrementing();
+        this.protected_fields = metadata.getProtectedFields();
     }
 
     @Override
     public Object get(String key) {
-        return record.get(key);
+        return record().get(key);
     }
 
     @Override
     public Map<String, Object> getData() {
-        return record.getData();
+        return record().getData();
     }
 
     @Override
     public void setData(Map<String, Object> data) {
         record.setData(data);
+        recordStale = false;
+        extraColumns = null;
         this.setFields();
     }
 
     @Override
     public String getString(String key) {
-        return record.getString(key);
+        return record().getString(key);
     }
 
     @Override
     public int getInt(String key) {
-        return record.getInt(key);
+        return record().getInt(key);
     }
 
     @Override
     public float getFloat(String key) {
-        return record.getFloat(key);
+        return record().getFloat(key);
     }
 
     @Override
     public String toJsonString(String... keysToHide) {
-        return record.toJsonString(keysToHide);
+        return record().toJsonString(keysToHide);
+    }
+
+    @Override
+    public void writeJson(Appendable out, String... keysToHide) throws IOException {
+        record().writeJson(out, keysToHide);
+    }
+
+    /**
+     * This will return the record, making it from the fields first if they were hydrated straight from a row.
+     *
+     * @return DBRecord
+     */
+    private DBRecord record() {
+        if (recordStale) {
+            Map<String, Object> data = extraColumns == null ? new HashMap<>() : new HashMap<>(extraColumns);
+            Object[] values = dehydrate();
+            List<ModelMetadata.Column> columns = metadata.getColumns();
+            for (int i = 0; i < columns.size(); i++) {
+                data.put(columns.get(i).getName(), values[i]);
+            }
+            record.setData(data);
+            recordStale = false;
+        }
+        return record;
+    }
+
+    /**
+     * This will set the fields from the columns of the row, the agent generates this for each model so the columns
+     * are read straight into the typed fields.
+     *
+     * @param row     - The result set on the row.
+     * @param indexes - The index in the row of each column in {@link ModelMetadata#getColumns()}, 0 if the row
+     *                doesn't have it.
+     * @throws SQLException if the row cannot be read.
+     */
+    protected void hydrate(ResultSet row, int[] indexes) throws SQLException {
+        List<ModelMetadata.Column> columns = metadata.getColumns();
+        for (int i = 0; i < columns.size(); i++) {
+            if (indexes[i] > 0) {
+                ModelMetadata.Column column = columns.get(i);
+                column.set(this, column.getType() == ModelMetadata.Column.Type.INT ?
+                        (Object) row.getInt(indexes[i]) : row.getString(indexes[i]));
+            }
+        }
+    }
+
+    /**
+     * This will return the values of the fields in the order of {@link ModelMetadata#getColumns()}, the agent
+     * generates this for each model.
+     *
+     * @return Object[]
+     */
+    protected Object[] dehydrate() {
+        List<ModelMetadata.Column> columns = metadata.getColumns();
+        Object[] values = new Object[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            values[i] = columns.get(i).get(this);
+        }
+        return values;
+    }
+
+    /**
+     * This will set up the model from a row of its table, it is used by {@link ModelRowMapper}.
+     *
+     * @param row          - The result set on the row.
+     * @param indexes      - The index in the row of each column of the model, 0 if the row doesn't have it.
+     * @param extraNames   - The names of the columns in the row that the model has no field for.
+     * @param extraIndexes - The index in the row of each of those columns.
+     * @throws SQLException if the row cannot be read.
+     */
+    void hydrateFrom(ResultSet row, int[] indexes, String[] extraNames, int[] extraIndexes) throws SQLException {
+        hydrate(row, indexes);
+        if (extraNames.length > 0) {
+            extraColumns = new HashMap<>();
+            for (int i = 0; i < extraNames.length; i++) {
+                extraColumns.put(extraNames[i], row.getObject(extraIndexes[i]));
+            }
+        }
+        recordStale = true;
+        this.saveType = "update";
+        original = dehydrate();
+        setupRelations();
     }
 
     protected void setFields() {
         this.saveType = "update";
-        Arrays.stream(this.getClass().getDeclaredFields()).forEach(f -> {
-            if (f.isAnnotationPresent(IntField.class)) {
-                f.setAccessible(true);
-                try {
-                    f.setInt(this, this.getInt(f.getName()));
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
-                }
-            } else if (f.isAnnotationPresent(StringField.class)) {
-                f.setAccessible(true);
-                try {
-                    f.set(this, this.getString(f.getName()));
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
-                }
+        for (ModelMetadata.Column column : metadata.getColumns()) {
+            if (column.getType() == ModelMetadata.Column.Type.INT) {
+                column.set(this, this.getInt(column.getName()));
+            } else {
+                column.set(this, this.getString(column.getName()));
             }
-        });
-        // Setup relations
-        Arrays.stream(this.getClass().getDeclaredFields()).forEach(f -> {
-            if (f.isAnnotationPresent(BelongsTo.class)) {
-                try {
-                    f.setAccessible(true);
-                    //noinspection unchecked
-                    Class<Model> modelType = (Class<Model>) f.getType();
-                    if (this.parents.containsKey(ModelUtils.getTableName(modelType))) {
-                        f.set(this, parents.get(ModelUtils.getTableName(modelType)));
-                    } else {
-                        BelongsTo belongsTo = f.getAnnotation(BelongsTo.class);
-                        String newForeignKey = belongsTo.foreignKey().equals("") ?
-                                f.getType().getSimpleName().toLowerCase() + "Id" : belongsTo.foreignKey();
-                        String newLocalKey = belongsTo.localKey().equals("") ? this.primaryKey : belongsTo.localKey();
-                        //noinspection unchecked
-                        f.set(this, this.belongsTo((Class<? extends Model>) f.getType(), newForeignKey, newLocalKey));
-                    }
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
-                }
-            } else if (f.isAnnotationPresent(HasMany.class)) {
-                try {
-                    f.setAccessible(true);
-                    //noinspection unchecked
-                    Class<Model> modelType = (Class<Model>) f.getType();
-                    if (this.parents.containsKey(ModelUtils.getTableName(modelType))) {
-                        f.set(this, parents.get(ModelUtils.getTableName(modelType)));
-                    } else {
-                        HasMany belongsTo = f.getAnnotation(HasMany.class);
-                        ParameterizedType pType = (ParameterizedType) f.getGenericType();
-                        Type type = pType.getActualTypeArguments()[0];
-                        String newForeignKey = belongsTo.foreignKey().equals("") ?
-                                getClass().getSimpleName().toLowerCase() + "Id" : belongsTo.foreignKey();
-                        String newLocalKey = belongsTo.localKey().equals("") ? this.primaryKey : belongsTo.localKey();
-                        //noinspection unchecked
-                        f.set(this, this.hasMany((Class<? extends Model>) type, newForeignKey, newLocalKey));
-                    }
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
-                }
+        }
+        Object[] previous = original;
+        Object[] values = dehydrate();
+        commitOriginal(nextVersion(), values);
+        resetRelations(previous, values);
+    }
+
+    @Override
+    public boolean isDirty() {
+        if (original == null) {
+            return true;
+        }
+        return !Arrays.equals(original, dehydrate());
+    }
+
+    @Override
+    public boolean isDirty(String column) {
+        int index = metadata.getColumnNames().indexOf(column);
+        if (index == -1) {
+            throw new IllegalArgumentException(getClass().getSimpleName() + " doesn't have the column: " + column);
+        }
+        return original == null || !Objects.equals(original[index], metadata.getColumns().get(index).get(this));
+    }
+
+    /**
+     * This will return the columns whose fields have changed since the model was loaded or last saved.
+     *
+     * @param values - The values of the fields now, see {@link #dehydrate()}.
+     * @return Map - Empty if nothing has changed.
+     */
+    private Map<String, Object> getChanges(Object[] values) {
+        Map<String, Object> changes = new HashMap<>();
+        List<ModelMetadata.Column> columns = metadata.getColumns();
+        for (int i = 0; i < columns.size(); i++) {
+            if (!Objects.equals(original[i], values[i])) {
+                changes.put(columns.get(i).getName(), values[i]);
             }
-        });
+        }
+        if (increments) {
+            // the database owns an auto incrementing key
+            changes.remove(this.primaryKey);
+        }
+        return changes;
+    }
+
+    /**
+     * This will reset the relations whose key has changed so they are loaded again when they are next read, the
+     * relations that were already loaded with the same key are kept.
+     *
+     * @param before - The values of the fields before, null if the relations have never been set up.
+     * @param after  - The values of the fields now.
+     */
+    private void resetRelations(Object[] before, Object[] after) {
+        if (before == null) {
+            setupRelations();
+            return;
+        }
+        List<String> columnNames = metadata.getColumnNames();
+        for (ModelMetadata.Relation relation : metadata.getRelations()) {
+            // a belongs to is found by this model's foreign key, a has many by its local key
+            String key = relation.getKind() == ModelMetadata.Relation.Kind.BELONGS_TO ? relation.getForeignKey() :
+                    relation.getLocalKey();
+            int index = columnNames.indexOf(key);
+            if (index == -1 || !Objects.equals(before[index], after[index])) {
+                relation.set(this, null);
+                pendingRelations.add(relation.getName());
+            }
+        }
+    }
+
+    /**
+     * This will set the relations that can be taken from the parents, the rest are loaded when they are first read.
+     */
+    private void setupRelations() {
+        pendingRelations.clear();
+        for (ModelMetadata.Relation relation : metadata.getRelations()) {
+            String relatedTable = ModelUtils.getTableName(relation.getRelatedClass());
+            if (relation.getKind() == ModelMetadata.Relation.Kind.BELONGS_TO && this.parents.containsKey(relatedTable)) {
+                relation.set(this, parents.get(relatedTable));
+            } else {
+                relation.set(this, null);
+                pendingRelations.add(relation.getName());
+            }
+        }
+    }
+
+    /**
+     * This will load the relation if it hasn't been loaded yet, the agent makes every read of a relation field in
+     * the model call this first.
+     *
+     * @param name - The name of the relation's field.
+     */
+    protected final void loadRelation(String name) {
+        if (!pendingRelations.remove(name)) {
+            return;
+        }
+        ModelMetadata.Relation relation = metadata.getRelation(name);
+        if (relation.getKind() == ModelMetadata.Relation.Kind.BELONGS_TO) {
+            relation.set(this, this.belongsTo(relation.getRelatedClass(), relation.getForeignKey(),
+                    relation.getLocalKey()));
+        } else {
+            relation.set(this, this.hasMany(relation.getRelatedClass(), relation.getForeignKey(),
+                    relation.getLocalKey()));
+        }
+    }
+
+    /**
+     * This will set a relation that has been loaded somewhere else, see {@link RelationLoader}.
+     *
+     * @param relation - The relation.
+     * @param value    - The related model or list of models.
+     */
+    void setRelation(ModelMetadata.Relation relation, Object value) {
+        pendingRelations.remove(relation.getName());
+        relation.set(this, value);
     }
 
     public void save() {
-        Map<String, Object> data = new HashMap<>();
-        Arrays.stream(this.getClass().getDeclaredFields()).forEach(f -> {
-            if (f.isAnnotationPresent(IntField.class)) {
-                try {
-                    f.setAccessible(true);
-                    data.put(f.getName(), f.getInt(this));
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
-                }
-            } else if (f.isAnnotationPresent(StringField.class)) {
-                try {
-                    f.setAccessible(true);
-                    data.put(f.getName(), f.get(this));
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
+        if (metadata.isWriteBehind()) {
+            saveDeferred();
+        } else {
+            write();
+        }
+    }
+
+    @Override
+    public void saveDeferred() {
+        if (!"update".equals(saveType) || original == null) {
+            // new models are written straight away so they have their primary key
+            write();
+            return;
+        }
+        // the save is taken now so the flush thread never reads the fields while they are being changed
+        long saveVersion = nextVersion();
+        Object[] values = dehydrate();
+        Map<String, Object> changes = getChanges(values);
+        if (changes.isEmpty()) {
+            return;
+        }
+        Object key = originalKey();
+        Map<String, Object> data = new HashMap<>(record().getData());
+        data.putAll(changes);
+        record.setData(data);
+        resetRelations(original, values);
+
+        DB.writeBehind().enqueue(this.tableName, key, this, new WriteBehindQueue.DeferredSave() {
+            @Override
+            public void write() {
+                if (!updateModel(key, changes)) {
+                    throw new IllegalStateException("Unable to update " + ImplModel.this.getClass().getSimpleName() +
+                            " " + primaryKey + ": " + key + ", the row wasn't changed.");
                 }
             }
+
+            @Override
+            public void committed() {
+                commitOriginal(saveVersion, values);
+            }
         });
-        switch (saveType) {
-            case "create":
-                try {
-                    createModel(data);
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
-                }
-                break;
-            case "update":
-                updateModel(data);
-                break;
+    }
+
+    /**
+     * This will return the version of a save that is about to be taken, saves are versioned so a save that is
+     * committed after a newer one doesn't put the model back to older values.
+     *
+     * @return long
+     */
+    private synchronized long nextVersion() {
+        return ++version;
+    }
+
+    /**
+     * This will mark the values as the ones in the database if they are from a newer save than the last ones marked.
+     *
+     * @param saveVersion - The version of the save, see {@link #nextVersion()}.
+     * @param values      - The values that were saved.
+     */
+    private synchronized void commitOriginal(long saveVersion, Object[] values) {
+        if (saveVersion > committedVersion) {
+            committedVersion = saveVersion;
+            original = values;
         }
+    }
 
-        this.setData(data);
+    /**
+     * This will write the model to the database, inserting it if it is new or updating the columns that have changed
+     * if not. The model is only marked as saved once the database says the write worked, if it didn't the model is
+     * left dirty so the next save tries again.
+     */
+    private void write() {
+        long saveVersion = nextVersion();
+        Object[] values = dehydrate();
+        if ("update".equals(saveType) && original != null) {
+            Map<String, Object> changes = getChanges(values);
+            if (changes.isEmpty()) {
+                // nothing has changed since it was loaded so there is nothing to write
+                return;
+            }
+            if (!updateModel(originalKey(), changes)) {
+                log.error("Unable to update {} {}: {}, the row wasn't changed.", getClass().getSimpleName(),
+                        this.primaryKey, originalKey());
+                return;
+            }
+            Map<String, Object> data = new HashMap<>(record().getData());
+            data.putAll(changes);
+            record.setData(data);
+        } else {
+            Map<String, Object> data = new HashMap<>();
+            List<ModelMetadata.Column> columns = metadata.getColumns();
+            for (int i = 0; i < columns.size(); i++) {
+                data.put(columns.get(i).getName(), values[i]);
+            }
+            if (!createModel(data)) {
+                log.error("Unable to create {}, no row was inserted.", getClass().getSimpleName());
+                return;
+            }
+            record.setData(data);
+            // the primary key may have been set from the database
+            values = dehydrate();
+        }
 
+        // the fields are already up to date so only the record and the relations whose key changed need setting
+        Object[] previous = original;
+        recordStale = false;
+        extraColumns = null;
+        commitOriginal(saveVersion, values);
+        this.saveType = "update";
+        resetRelations(previous, values);
     }
 
     public boolean delete() {
@@ -218,17 +462,27 @@ public class ImplModel extends Model {
                 .delete();
     }
 
-    private void updateModel(Map<String, Object> data) {
-        int id = -1;
-        if (increments) {
-            id = (int) data.get(this.primaryKey);
-            data.remove(this.primaryKey);
-        }
-        DB.getConnection().createCommandBuilder(this.tableName).where(this.primaryKey, this.get(this.primaryKey))
-                .update(data);
-        if (increments) {
-            data.put(this.primaryKey, id);
-        }
+    /**
+     * This will update the row with only the columns that have changed, the row is found by the primary key as it was
+     * loaded so changing a key that doesn't increment updates the key too.
+     *
+     * @param key     - The primary key of the row as it was loaded or last saved.
+     * @param changes - The changed columns, it isn't changed.
+     * @return boolean - true if the row was updated.
+     */
+    private boolean updateModel(Object key, Map<String, Object> changes) {
+        return DB.getConnection().createCommandBuilder(this.tableName).where(this.primaryKey, key)
+                .update(changes);
+    }
+
+    /**
+     * This is the primary key of the model as it was loaded or last saved.
+     *
+     * @return Object
+     */
+    private Object originalKey() {
+        int keyIndex = metadata.getColumnNames().indexOf(this.primaryKey);
+        return keyIndex == -1 ? this.get(this.primaryKey) : original[keyIndex];
     }
 
     @Override
@@ -246,7 +500,7 @@ public class ImplModel extends Model {
         for (IDBRecord t : executeQuery) {
             try {
                 parents.put(ModelUtils.getTableName(getClass()), this);
-                E model = clazz.getDeclaredConstructor().newInstance();
+                E model = ModelMetadata.of(clazz).newInstance();
                 model.setParents(parents);
                 model.setData(t.getData());
                 models.add(model);
@@ -267,7 +521,8 @@ public class ImplModel extends Model {
                 DB.getConnection().
                         createQueryBuilder(ModelUtils.getTableName(clazz), ModelUtils.getPrimaryKey(clazz));
 
-        E returnType = covertListToRelationalModels(clazz, query.where(localKey, this.get(foreignKey)).get()).get(0);
+        E returnType = covertListToRelationalModels(clazz, query.where(localKey, this.get(foreignKey)).get()).stream()
+                .findFirst().orElse(null);
         if (returnType == null) {
             log.info("BelongsTo Failed, please check your foreign key and or if the other row " +
                     "exists in the relation");
@@ -289,22 +544,10 @@ public class ImplModel extends Model {
      * @return List a list of the relation
      */
     protected <E extends Model> List<E> belongsToMany(Class<E> clazz) {
-        List<String> tableNames = new ArrayList<>();
-        String foreignTableName = clazz.getSimpleName().toLowerCase();
-        String primaryTableName = getClass().getSimpleName().toLowerCase();
-        tableNames.add(foreignTableName);
-        tableNames.add(primaryTableName);
-        tableNames.sort(java.util.Comparator.naturalOrder());
-
-        String intermediateTable = String.join("_", tableNames);
-        List<IDBRecord> records = DB.getConnection().createQueryBuilder(intermediateTable, "id").where(primaryTableName + "Id",
-                this.get(this.primaryKey)).get();
-
-        IModelBuilder<E> model = ModelUtils.where(clazz, "id", records.get(0).get(foreignTableName + "Id"));
-        for (int i = 1; i < records.size() - 1; i++) {
-            model.or(new WhereStatement("id", records.get(0).get(foreignTableName + "Id")));
-        }
-        return model.get();
+        Object key = this.get(this.primaryKey);
+        List<E> related = RelationLoader.findManyToMany(getClass(), Collections.singletonList(key), clazz)
+                .get(String.valueOf(key));
+        return related == null ? new ArrayList<>() : related;
     }
 
     /**
@@ -322,22 +565,41 @@ public class ImplModel extends Model {
                 .first().orElse(null);
     }
 
-    private void createModel(Map<String, Object> data) throws IllegalAccessException {
-        Optional<Field> primaryKeyField = Arrays.stream(this.getClass().getDeclaredFields()).filter(f -> f.getName()
-                .equals(primaryKey)).findFirst();
+    /**
+     * This will insert the model, setting its primary key from the database if it increments.
+     *
+     * @param data - The columns of the model, the new primary key is put into it.
+     * @return boolean - true if the row was inserted.
+     */
+    private boolean createModel(Map<String, Object> data) {
+        ModelMetadata.Column primaryKeyColumn = metadata.getColumn(primaryKey);
 
-        if (DB.getConnection().createCommandBuilder(this.tableName).insert(data)) {
-            int newId = ModelUtils.all(getClass()).size() + 1;
-            if (primaryKeyField.isPresent() && increments) {
-                Field f = primaryKeyField.get();
-                f.setAccessible(true);
-                f.set(this, newId);
-                data.put(this.primaryKey, newId);
-            }
+        if (increments) {
+            // leave the key out so the database generates it
+            data.remove(this.primaryKey);
+        }
+        long newId = DB.getConnection().createCommandBuilder(this.tableName).insertGetId(data);
+        if (newId == -1) {
+            return false;
+        }
+        if (primaryKeyColumn != null && increments) {
+            primaryKeyColumn.set(this, (int) newId);
+            data.put(this.primaryKey, (int) newId);
         }
+        return true;
     }
 
     public String toJson() {
         return this.toJsonString(this.protected_fields);
     }
+
+    @Override
+    public void writeJson(Appendable out) throws IOException {
+        if (recordStale && extraColumns == null) {
+            // the fields are already in column order so the protected ones are skipped by index
+            JsonWriter.writeColumns(out, metadata, dehydrate());
+        } else {
+            record().writeJson(out, this.protected_fields);
+        }
+    }
 }
@@ -0,0 +1,109 @@
+package uk.co.bjdavies.db.impl;
+
+import uk.co.bjdavies.api.db.IRowMapper;
+import uk.co.bjdavies.db.ModelMetadata;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This turns the rows of a query straight into models without going through a {@link uk.co.bjdavies.db.DBRecord},
+ * the columns are looked up by name once on the first row and then read by index into the model's fields.
+ * <p>
+ * The model reads the row with {@link ImplModel#hydrate(ResultSet, int[])} which the agent generates for each model,
+ * without the agent the fields are set through {@link ModelMetadata}.
+ * </p>
+ *
+ * @param <T> - The type of the model.
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+public final class ModelRowMapper<T> implements IRowMapper<T> {
+
+    private final ModelMetadata metadata;
+    private final String[] ignoredColumns;
+    private int[] indexes;
+    private String[] extraNames;
+    private int[] extraIndexes;
+
+    public ModelRowMapper(Class<T> modelClass) {
+        this(modelClass, new String[0]);
+    }
+
+    /**
+     * @param modelClass     - The class of the model.
+     * @param ignoredColumns - The columns of the row that aren't part of the model, such as a key selected from a
+     *                       joined table, they are left out of the model.
+     */
+    public ModelRowMapper(Class<T> modelClass, String... ignoredColumns) {
+        this.metadata = ModelMetadata.of(modelClass);
+        this.ignoredColumns = ignoredColumns;
+    }
+
+    /**
+     * This checks whether the rows of a model class can be mapped by this.
+     *
+     * @param modelClass - The class of the model.
+     * @return boolean - false if the class hasn't been instrumented to extend {@link ImplModel}.
+     */
+    public static boolean supports(Class<?> modelClass) {
+        return ImplModel.class.isAssignableFrom(modelClass);
+    }
+
+    @Override
+    public T map(ResultSet row) throws SQLException {
+        if (indexes == null) {
+            locateColumns(row.getMetaData());
+        }
+        ImplModel model = metadata.newInstance();
+        model.hydrateFrom(row, indexes, extraNames, extraIndexes);
+        //noinspection unchecked
+        return (T) model;
+    }
+
+    private void locateColumns(ResultSetMetaData metaData) throws SQLException {
+        List<ModelMetadata.Column> columns = metadata.getColumns();
+        int[] located = new int[columns.size()];
+        List<String> names = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            String name = metaData.getColumnName(i);
+            if (isIgnored(name)) {
+                continue;
+            }
+            int column = indexOf(columns, name);
+            if (column == -1) {
+                names.add(name);
+                positions.add(i);
+            } else if (located[column] == 0) {
+                located[column] = i;
+            }
+        }
+
+        extraNames = names.toArray(new String[0]);
+        extraIndexes = positions.stream().mapToInt(Integer::intValue).toArray();
+        indexes = located;
+    }
+
+    private boolean isIgnored(String name) {
+        for (String ignored : ignoredColumns) {
+            if (ignored.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int indexOf(List<ModelMetadata.Column> columns, String name) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).getName().equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
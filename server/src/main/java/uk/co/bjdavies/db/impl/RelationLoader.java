@@ -0,0 +1,213 @@
+package uk.co.bjdavies.db.impl;
+
+import uk.co.bjdavies.api.db.Comparator;
+import uk.co.bjdavies.api.db.IConnection;
+import uk.co.bjdavies.api.db.IDBRecord;
+import uk.co.bjdavies.api.db.IQueryBuilder;
+import uk.co.bjdavies.api.db.IRowMapper;
+import uk.co.bjdavies.api.db.Model;
+import uk.co.bjdavies.api.db.WhereStatement;
+import uk.co.bjdavies.db.DB;
+import uk.co.bjdavies.db.ModelMetadata;
+import uk.co.bjdavies.db.ModelUtils;
+
+import java.sql.SQLException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This eager loads relations for a list of models, each relation is loaded for all of them with a single
+ * {@code WHERE key IN (...)} query and then matched up to its model in memory. Many to many relations are loaded the
+ * same way with the intermediate table joined to the query.
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+public final class RelationLoader {
+
+    /**
+     * This is the alias of the intermediate table of a many to many relation.
+     */
+    private static final String PIVOT_ALIAS = "p";
+
+    /**
+     * This is the column the key of the model each row belongs to is selected as.
+     */
+    private static final String PIVOT_KEY = "__pivot_key";
+
+    private RelationLoader() {
+    }
+
+    /**
+     * This will load the relations for the models.
+     *
+     * @param models    - The models, they must all be the same class.
+     * @param relations - The names of the relation fields to load.
+     * @throws IllegalArgumentException if the model doesn't have one of the relations.
+     */
+    public static void load(List<? extends Model> models, String... relations) {
+        if (models.isEmpty() || relations.length == 0) {
+            return;
+        }
+
+        ModelMetadata metadata = ModelMetadata.of(models.get(0).getClass());
+        for (String name : relations) {
+            ModelMetadata.Relation relation = metadata.getRelation(name);
+            if (relation == null) {
+                throw new IllegalArgumentException(metadata.getModelClass().getSimpleName() +
+                        " doesn't have the relation: " + name);
+            }
+            if (relation.getKind() == ModelMetadata.Relation.Kind.BELONGS_TO) {
+                loadBelongsTo(models, relation);
+            } else {
+                loadHasMany(models, relation);
+            }
+        }
+    }
+
+    private static void loadBelongsTo(List<? extends Model> models, ModelMetadata.Relation relation) {
+        Map<String, Model> related = new HashMap<>();
+        for (Model model : find(models, relation, relation.getForeignKey(), relation.getLocalKey())) {
+            related.putIfAbsent(String.valueOf(model.get(relation.getLocalKey())), model);
+        }
+
+        for (Model model : models) {
+            ((ImplModel) model).setRelation(relation,
+                    related.get(String.valueOf(model.get(relation.getForeignKey()))));
+        }
+    }
+
+    private static void loadHasMany(List<? extends Model> models, ModelMetadata.Relation relation) {
+        Map<String, List<Model>> related = new HashMap<>();
+        for (Model model : find(models, relation, relation.getLocalKey(), relation.getForeignKey())) {
+            related.computeIfAbsent(String.valueOf(model.get(relation.getForeignKey())), k -> new ArrayList<>())
+                    .add(model);
+        }
+
+        for (Model model : models) {
+            List<Model> children = related.get(String.valueOf(model.get(relation.getLocalKey())));
+            ((ImplModel) model).setRelation(relation, children == null ? new ArrayList<>() : children);
+        }
+    }
+
+    /**
+     * This will load a many to many relation for all the models with one query that joins the related table to the
+     * intermediate table, see {@link ImplModel#belongsToMany(Class)}.
+     *
+     * @param models       - The models, they must all be the same class.
+     * @param relatedClass - The class of the related models.
+     * @param <E>          - The type of the related models.
+     * @return Map - The related models of each model, keyed by the model itself.
+     */
+    public static <E extends Model> Map<Model, List<E>> belongsToMany(List<? extends Model> models,
+                                                                      Class<E> relatedClass) {
+        Map<Model, List<E>> result = new IdentityHashMap<>();
+        if (models.isEmpty()) {
+            return result;
+        }
+
+        ModelMetadata metadata = ModelMetadata.of(models.get(0).getClass());
+        Set<Object> keys = new LinkedHashSet<>();
+        for (Model model : models) {
+            Object key = model.get(metadata.getPrimaryKey());
+            if (key != null) {
+                keys.add(key);
+            }
+        }
+        Map<String, List<E>> related = keys.isEmpty() ? Collections.emptyMap() :
+                findManyToMany(metadata.getModelClass(), keys, relatedClass);
+
+        for (Model model : models) {
+            List<E> children = related.get(String.valueOf(model.get(metadata.getPrimaryKey())));
+            result.put(model, children == null ? new ArrayList<>() : children);
+        }
+        return result;
+    }
+
+    /**
+     * This will find the related models of a many to many relation.
+     * <p>
+     * The intermediate table is the two lowercase class names in alphabetical order joined by an underscore and it
+     * has a {@code <name>Id} column for each of them e.g. ignore_user with ignoreId and userId.
+     * </p>
+     *
+     * @param modelClass   - The class of the models.
+     * @param keys         - The primary keys of the models.
+     * @param relatedClass - The class of the related models.
+     * @param <E>          - The type of the related models.
+     * @return Map - The related models keyed by the primary key of the model they belong to.
+     */
+    static <E extends Model> Map<String, List<E>> findManyToMany(Class<?> modelClass, Collection<?> keys,
+                                                                 Class<E> relatedClass) {
+        String modelName = modelClass.getSimpleName().toLowerCase();
+        String relatedName = relatedClass.getSimpleName().toLowerCase();
+        List<String> tableNames = new ArrayList<>();
+        tableNames.add(modelName);
+        tableNames.add(relatedName);
+        tableNames.sort(java.util.Comparator.naturalOrder());
+        String intermediateTable = String.join("_", tableNames);
+
+        ModelMetadata related = ModelMetadata.of(relatedClass);
+        IConnection connection = DB.getConnection();
+        IQueryBuilder<IDBRecord> query = connection.createQueryBuilder(related.getTableName(), related.getPrimaryKey());
+        query.join(intermediateTable, PIVOT_ALIAS, relatedName + "Id", related.getPrimaryKey())
+                .where(new WhereStatement(PIVOT_ALIAS + "." + modelName + "Id", keys, Comparator.IN))
+                .select("*", PIVOT_ALIAS + "." + modelName + "Id AS " + PIVOT_KEY);
+
+        Map<String, List<E>> byKey = new HashMap<>();
+        try {
+            if (ModelRowMapper.supports(relatedClass)) {
+                IRowMapper<E> models = new ModelRowMapper<>(relatedClass, PIVOT_KEY);
+                for (Map.Entry<String, E> row : connection.executeQuery(query, resultSet ->
+                        new AbstractMap.SimpleEntry<>(resultSet.getString(PIVOT_KEY), models.map(resultSet)))) {
+                    byKey.computeIfAbsent(row.getKey(), k -> new ArrayList<>()).add(row.getValue());
+                }
+            } else {
+                for (IDBRecord record : connection.executeQuery(query)) {
+                    Map<String, Object> data = record.getData();
+                    String key = String.valueOf(data.remove(PIVOT_KEY));
+                    byKey.computeIfAbsent(key, k -> new ArrayList<>()).add(related.newInstance(data));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Unable to load " + relatedClass.getSimpleName() + " through " +
+                    intermediateTable, e);
+        }
+        return byKey;
+    }
+
+    /**
+     * This will find the related models for all the models in one query.
+     *
+     * @param models     - The models.
+     * @param relation   - The relation being loaded.
+     * @param key        - The column of the models holding the value to match.
+     * @param relatedKey - The column of the related models the value is matched against.
+     * @return List
+     */
+    private static List<Model> find(List<? extends Model> models, ModelMetadata.Relation relation, String key,
+                                    String relatedKey) {
+        Set<Object> keys = new LinkedHashSet<>();
+        for (Model model : models) {
+            Object value = model.get(key);
+            if (value != null) {
+                keys.add(value);
+            }
+        }
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        //noinspection unchecked
+        Class<Model> relatedClass = (Class<Model>) relation.getRelatedClass();
+        return ModelUtils.where(relatedClass, new WhereStatement(relatedKey, keys, Comparator.IN)).get();
+    }
+}
@@ -2,6 +2,7 @@ package uk.co.bjdavies.db.impl;
 
 import uk.co.bjdavies.api.db.ISQLCommand;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -12,10 +13,36 @@ public class SQLCommand implements ISQLCommand {
 
     private final String sql;
     private final List<String> values;
+    private final List<Object> parameters;
 
     public SQLCommand(String sql, List<String> values) {
+        this(sql, values, new ArrayList<>(values));
+    }
+
+    private SQLCommand(String sql, List<String> values, List<Object> parameters) {
         this.sql = sql;
         this.values = values;
+        this.parameters = parameters;
+    }
+
+    /**
+     * This will make a command whose values keep their types when they are bound, e.g. so an int is bound as an int
+     * and null as NULL instead of the text "null".
+     *
+     * @param sql        - The SQL.
+     * @param parameters - The values, only strings, numbers, booleans, byte arrays and null are bound as they are and
+     *                   anything else is bound as its text.
+     * @return SQLCommand
+     */
+    public static SQLCommand withParameters(String sql, List<Object> parameters) {
+        List<String> values = new ArrayList<>(parameters.size());
+        List<Object> bound = new ArrayList<>(parameters.size());
+        for (Object parameter : parameters) {
+            values.add(parameter == null ? null : String.valueOf(parameter));
+            bound.add(parameter == null || parameter instanceof String || parameter instanceof Number ||
+                    parameter instanceof Boolean || parameter instanceof byte[] ? parameter : String.valueOf(parameter));
+        }
+        return new SQLCommand(sql, values, bound);
     }
 
     @Override
@@ -27,4 +54,9 @@ public class SQLCommand implements ISQLCommand {
     public List<String> getValues() {
         return values;
     }
+
+    @Override
+    public List<Object> getParameters() {
+        return parameters;
+    }
 }
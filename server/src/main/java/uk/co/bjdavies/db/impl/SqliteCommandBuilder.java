@@ -41,6 +41,46 @@ public class SqliteCommandBuilder extends CommandBuilder {
         }
     }
 
+    /**
+     * This will build the condition of a where statement with its values bound, it is shared with
+     * {@link SqliteQueryBuilder}.
+     *
+     * @param column    - The column as it should appear in the SQL.
+     * @param statement - The where statement.
+     * @param values    - The values bound to the query, the statement's values are added to it.
+     * @return String
+     */
+    static String conditionToString(String column, WhereStatement statement, List<String> values) {
+        switch (statement.getComparator()) {
+            case IN:
+            case NOT_IN:
+                boolean in = statement.getComparator() == Comparator.IN;
+                if (statement.getValues().isEmpty()) {
+                    // nothing is in an empty list
+                    return in ? "1 = 0" : "1 = 1";
+                }
+                StringBuilder sb = new StringBuilder(column).append(in ? " IN (" : " NOT IN (");
+                for (int i = 0; i < statement.getValues().size(); i++) {
+                    sb.append(i == 0 ? "?" : ", ?");
+                }
+                values.addAll(statement.getValues());
+                return sb.append(")").toString();
+            case BETWEEN:
+                if (statement.getValues().size() != 2) {
+                    throw new IllegalArgumentException("Between needs a low and a high value for " + column);
+                }
+                values.addAll(statement.getValues());
+                return column + " BETWEEN ? AND ?";
+            case IS_NULL:
+                return column + " IS NULL";
+            case IS_NOT_NULL:
+                return column + " IS NOT NULL";
+            default:
+                values.add(statement.getValue());
+                return column + " " + getComparatorToString(statement.getComparator()) + " ?";
+        }
+    }
+
     @Override
     public ISQLCommand buildCommand() {
         switch (type) {
@@ -55,7 +95,7 @@ public class SqliteCommandBuilder extends CommandBuilder {
     }
 
     private ISQLCommand buildInsertCommand() {
-        List<String> values = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
         StringBuilder stringBuilder = new StringBuilder();
         stringBuilder.append("INSERT INTO ")
                 .append(this.tableName);
@@ -64,7 +104,7 @@ public class SqliteCommandBuilder extends CommandBuilder {
         AtomicInteger i = new AtomicInteger();
         this.commandValues.forEach((key, value) -> {
             stringBuilder.append(key).append(i.get() < this.commandValues.keySet().size() - 1 ? ", " : "");
-            values.add(String.valueOf(value));
+            values.add(value);
             i.getAndIncrement();
         });
         stringBuilder.append(") VALUES (");
@@ -75,7 +115,7 @@ public class SqliteCommandBuilder extends CommandBuilder {
         stringBuilder.append(")");
 
 
-        return new SQLCommand(stringBuilder.toString(), values);
+        return SQLCommand.withParameters(stringBuilder.toString(), values);
     }
 
     private ISQLCommand buildUpdateCommand() {
@@ -84,7 +124,7 @@ public class SqliteCommandBuilder extends CommandBuilder {
             throw new RuntimeException("You must supply a where statement for updating a row in the database");
         }
 
-        List<String> values = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
         StringBuilder stringBuilder = new StringBuilder();
         stringBuilder.append("UPDATE ")
                 .append(this.tableName);
@@ -93,14 +133,16 @@ public class SqliteCommandBuilder extends CommandBuilder {
         AtomicInteger i = new AtomicInteger();
         this.commandValues.forEach((key, value) -> {
             stringBuilder.append(key).append("=?").append(i.get() < this.commandValues.keySet().size() - 1 ? ", " : "");
-            values.add(String.valueOf(value));
+            values.add(value);
             i.getAndIncrement();
         });
 
-        stringBuilder.append(buildWhereQueries(values));
+        List<String> whereValues = new ArrayList<>();
+        stringBuilder.append(buildWhereQueries(whereValues));
+        values.addAll(whereValues);
 
 
-        return new SQLCommand(stringBuilder.toString(), values);
+        return SQLCommand.withParameters(stringBuilder.toString(), values);
     }
 
     private ISQLCommand buildDeleteCommand() {
@@ -179,14 +221,7 @@ public class SqliteCommandBuilder extends CommandBuilder {
     }
 
     private String whereStatementToString(WhereStatement statement, List<String> values) {
-        StringBuilder sb = new StringBuilder();
-        sb
-                .append(statement.getKey())
-                .append(comparatorToString(statement.getComparator()))
-                .append("?");
-        values.add(statement.getValue());
-
-        return sb.toString();
+        return conditionToString(statement.getKey(), statement, values);
     }
 
     private String operatorToString(Operator operator) {
@@ -199,8 +234,4 @@ public class SqliteCommandBuilder extends CommandBuilder {
                 return "";
         }
     }
-
-    private String comparatorToString(Comparator comparator) {
-        return getComparatorToString(comparator);
-    }
 }
@@ -2,17 +2,24 @@ package uk.co.bjdavies.db.impl;
 
 import lombok.SneakyThrows;
 import lombok.extern.log4j.Log4j2;
+import reactor.core.publisher.Flux;
 import uk.co.bjdavies.api.config.IDatabaseConfig;
 import uk.co.bjdavies.api.db.*;
-import uk.co.bjdavies.db.DBRecord;
+import uk.co.bjdavies.db.ConnectionPool;
+import uk.co.bjdavies.db.DB;
+import uk.co.bjdavies.db.CompactRecord;
+import uk.co.bjdavies.db.RowSchema;
 
 import java.io.File;
 import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * @author ben.davies99@outlook.com (Ben Davies)
@@ -21,8 +28,17 @@ import java.util.Map;
 @Log4j2
 public class SqliteConnection implements IConnection {
 
+    /**
+     * This is the number of connections that can read at the same time.
+     */
+    private static final int READERS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
 
-    private final Connection connection;
+    /**
+     * This is how long to wait for a reader or a lock on the database file before failing.
+     */
+    private static final int TIMEOUT_MILLIS = 5000;
+
+    private final ConnectionPool pool;
 
     @SneakyThrows
     public SqliteConnection(IDatabaseConfig config) {
@@ -43,53 +59,255 @@ public class SqliteConnection implements IConnection {
         }
 
 
-        connection = DriverManager.getConnection("jdbc:sqlite:" + config.getDatabase());
+        String url = "jdbc:sqlite:" + config.getDatabase();
+        pool = new ConnectionPool(writer -> open(url, writer), READERS, TIMEOUT_MILLIS);
+    }
+
+    /**
+     * This will open a connection to the database, the writer puts the database into WAL mode so the readers can
+     * read while it is writing.
+     *
+     * @param url    - The jdbc url of the database.
+     * @param writer - Whether the connection is the writer.
+     * @return Connection
+     * @throws SQLException if the connection cannot be opened.
+     */
+    private static Connection open(String url, boolean writer) throws SQLException {
+        Connection connection = DriverManager.getConnection(url);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA busy_timeout = " + TIMEOUT_MILLIS);
+            if (writer) {
+                statement.execute("PRAGMA journal_mode = WAL");
+                statement.execute("PRAGMA synchronous = NORMAL");
+            } else {
+                statement.execute("PRAGMA query_only = true");
+            }
+        }
+        return connection;
     }
 
     @Override
     public <T extends IDBRecord> List<T> executeQuery(IQueryBuilder<T> query) throws SQLException {
+        ISQLCommand sqlCommand = query.buildStatement();
         //noinspection unchecked
-        return (List<T>) processResultSet(connection.prepareStatement(query.buildQuery()).executeQuery());
+        return (List<T>) pool.read(connection -> query(connection, sqlCommand, this::processResultSet));
+    }
+
+    @Override
+    public <R> List<R> executeQuery(IQueryBuilder<?> query, IRowMapper<R> mapper) throws SQLException {
+        ISQLCommand sqlCommand = query.buildStatement();
+        return pool.read(connection -> query(connection, sqlCommand, resultSet -> {
+            List<R> rows = new ArrayList<>();
+            while (resultSet.next()) {
+                rows.add(mapper.map(resultSet));
+            }
+            return rows;
+        }));
     }
 
     @Override
-    public Object executeCommand(ICommandBuilder command) {
+    public long executeScalar(ISQLCommand query) throws SQLException {
+        return pool.read(connection -> query(connection, query,
+                resultSet -> resultSet.next() ? resultSet.getLong(1) : 0L));
+    }
+
+    @Override
+    public <T extends IDBRecord> Flux<T> streamQuery(IQueryBuilder<T> query) {
+        RecordMapper records = new RecordMapper();
+        //noinspection unchecked
+        return streamQuery(query, row -> (T) records.map(row));
+    }
+
+    @Override
+    public <R> Flux<R> streamQuery(IQueryBuilder<?> query, IRowMapper<R> mapper) {
+        if (pool.isWriting()) {
+            // inside a transaction only the writer can see its rows, so they are read now while this thread has it
+            try {
+                return Flux.fromIterable(executeQuery(query, mapper));
+            } catch (SQLException e) {
+                return Flux.error(e);
+            }
+        }
+        ISQLCommand sqlCommand = query.buildStatement();
+        return Flux.<R, RowCursor>generate(() -> new RowCursor(sqlCommand, 0), (cursor, sink) -> {
+            try {
+                if (cursor.next()) {
+                    sink.next(mapper.map(cursor.resultSet));
+                } else {
+                    sink.complete();
+                }
+            } catch (SQLException e) {
+                sink.error(e);
+            }
+            return cursor;
+        }, RowCursor::close).subscribeOn(DB.scheduler());
+    }
+
+    @Override
+    public <R> ICursor<R> cursor(IQueryBuilder<?> query, IRowMapper<R> mapper, int fetchSize) throws SQLException {
+        if (pool.isWriting()) {
+            // inside a transaction only the writer can see its rows and it can't be held past the transaction
+            return IConnection.super.cursor(query, mapper, fetchSize);
+        }
+        return new MappedCursor<>(new RowCursor(query.buildStatement(), fetchSize), mapper);
+    }
+
+    @Override
+    public <T extends IDBRecord> ICursor<T> cursor(IQueryBuilder<T> query, int fetchSize) throws SQLException {
+        RecordMapper records = new RecordMapper();
+        //noinspection unchecked
+        return cursor(query, row -> (T) records.map(row), fetchSize);
+    }
+
+    @Override
+    public Object executeCommand(ICommandBuilder command) throws SQLException {
+        ISQLCommand sqlCommand = command.buildCommand();
         try {
-            ISQLCommand sqlCommand = command.buildCommand();
-            PreparedStatement statement = connection.prepareStatement(sqlCommand.getSQL());
-            for (int i = 0; i < sqlCommand.getValues().size(); i++) {
-                statement.setString(i + 1, sqlCommand.getValues().get(i));
-            }
-            connection.setAutoCommit(false);
-            int result = statement.executeUpdate();
-            if (result > 0) connection.commit();
-            connection.setAutoCommit(true);
-            return result > 0;
+            return pool.write(connection -> prepare(connection, sqlCommand).executeUpdate() > 0);
         } catch (SQLException e) {
-            e.printStackTrace();
+            if (pool.isWriting()) {
+                // a transaction is open on this thread, it has to see the failure so it is rolled back
+                throw e;
+            }
+            log.error("Unable to execute command: " + sqlCommand.getSQL(), e);
         }
         return false;
     }
 
+    @Override
+    public long executeInsert(ICommandBuilder command) throws SQLException {
+        ISQLCommand sqlCommand = command.buildCommand();
+        try {
+            return pool.write(connection -> {
+                if (prepare(connection, sqlCommand).executeUpdate() == 0) {
+                    return -1L;
+                }
+                return query(connection, new SQLCommand("SELECT last_insert_rowid()", Collections.emptyList()),
+                        resultSet -> resultSet.next() ? resultSet.getLong(1) : -1L);
+            });
+        } catch (SQLException e) {
+            if (pool.isWriting()) {
+                // a transaction is open on this thread, it has to see the failure so it is rolled back
+                throw e;
+            }
+            log.error("Unable to execute insert: " + sqlCommand.getSQL(), e);
+        }
+        return -1L;
+    }
+
+    @Override
+    public int executeBatch(List<ISQLCommand> commands) throws SQLException {
+        if (commands.isEmpty()) {
+            return 0;
+        }
+        return inTransaction(connection -> {
+            int changed = 0;
+            int i = 0;
+            while (i < commands.size()) {
+                String sql = commands.get(i).getSQL();
+                PreparedStatement statement = pool.prepare(connection, sql);
+                for (; i < commands.size() && commands.get(i).getSQL().equals(sql); i++) {
+                    bind(statement, commands.get(i));
+                    statement.addBatch();
+                }
+                for (int result : statement.executeBatch()) {
+                    if (result > 0 || result == Statement.SUCCESS_NO_INFO) {
+                        changed++;
+                    }
+                }
+            }
+            return changed;
+        });
+    }
+
+    @Override
+    public void transaction(Consumer<ITransaction> work) throws SQLException {
+        inTransaction(connection -> {
+            Transaction transaction = new Transaction(this);
+            work.accept(transaction);
+            return transaction;
+        }, Transaction::isRolledBack);
+    }
+
+    private <R> R inTransaction(ConnectionPool.SQLWork<R> work) throws SQLException {
+        return inTransaction(work, result -> false);
+    }
+
+    /**
+     * This will run the work on the writer inside a transaction, if the writer is already in a transaction on this
+     * thread the work is done inside a savepoint of it instead so rolling the work back leaves the rest of the outer
+     * transaction alone.
+     *
+     * @param work       - The work to do.
+     * @param rolledBack - This checks the result of the work to see if it asked to be rolled back.
+     * @param <R>        - The result type.
+     * @return R
+     * @throws SQLException if the work or the commit fails, it will have been rolled back.
+     */
+    private <R> R inTransaction(ConnectionPool.SQLWork<R> work, Predicate<R> rolledBack) throws SQLException {
+        return pool.write(connection -> {
+            boolean outer = connection.getAutoCommit();
+            Savepoint savepoint = null;
+            if (outer) {
+                connection.setAutoCommit(false);
+            } else {
+                savepoint = connection.setSavepoint();
+            }
+            try {
+                R result = work.apply(connection);
+                if (rolledBack.test(result)) {
+                    rollback(connection, savepoint);
+                } else if (outer) {
+                    connection.commit();
+                } else {
+                    connection.releaseSavepoint(savepoint);
+                }
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                rollback(connection, savepoint);
+                throw e;
+            } finally {
+                if (outer) {
+                    connection.setAutoCommit(true);
+                }
+            }
+        });
+    }
+
+    private static void rollback(Connection connection, Savepoint savepoint) throws SQLException {
+        if (savepoint == null) {
+            connection.rollback();
+        } else {
+            connection.rollback(savepoint);
+            connection.releaseSavepoint(savepoint);
+        }
+    }
+
+    @Override
+    public boolean execute(String sql) throws SQLException {
+        return pool.write(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                return statement.execute(sql);
+            }
+        });
+    }
+
     @Override
     public Connection getSQLConnection() {
-        //TODO: Remove this and add table creation to this connection class its DB dependant.
-        return connection;
+        return pool.getWriter();
+    }
+
+    @Override
+    public void close() {
+        pool.close();
     }
 
     private List<IDBRecord> processResultSet(ResultSet resultSet) {
         List<IDBRecord> rows = new ArrayList<>();
         try {
-            ResultSetMetaData metaData = resultSet.getMetaData();
+            RowSchema schema = RowSchema.of(resultSet);
             while (resultSet.next()) {
-                Map<String, Object> objectMap = new HashMap<>();
-                for (int i = 1; i < metaData.getColumnCount() + 1; i++) {
-                    String columnName = metaData.getColumnName(i);
-                    Object columnValue = resultSet.getObject(columnName);
-                    objectMap.put(columnName, columnValue);
-                }
-
-                rows.add(new DBRecord(objectMap));
+                rows.add(CompactRecord.read(resultSet, schema));
             }
         } catch (Exception e) {
             log.error("Error selecting all from the table, most likely the table has not been created.", e);
@@ -99,6 +317,49 @@ public class SqliteConnection implements IConnection {
         return rows;
     }
 
+    /**
+     * This will return the cached statement for the command with its values bound.
+     *
+     * @param connection - The connection from the pool being used.
+     * @param sqlCommand - The SQL and its values.
+     * @return PreparedStatement - It must not be closed.
+     * @throws SQLException if the statement cannot be prepared.
+     */
+    private PreparedStatement prepare(Connection connection, ISQLCommand sqlCommand) throws SQLException {
+        PreparedStatement statement = pool.prepare(connection, sqlCommand.getSQL());
+        bind(statement, sqlCommand);
+        return statement;
+    }
+
+    /**
+     * This will run the query on a statement lent from the pool and give it back once the result set has been read.
+     *
+     * @param connection - The connection from the pool being used.
+     * @param sqlCommand - The SQL and its values.
+     * @param reader     - This reads the result set, it is closed afterwards.
+     * @param <R>        - The result type.
+     * @return R
+     * @throws SQLException if the query fails.
+     */
+    private <R> R query(Connection connection, ISQLCommand sqlCommand, IRowMapper<R> reader) throws SQLException {
+        PreparedStatement statement = pool.prepareQuery(connection, sqlCommand.getSQL());
+        try {
+            bind(statement, sqlCommand);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return reader.map(resultSet);
+            }
+        } finally {
+            pool.release(connection, statement);
+        }
+    }
+
+    private static void bind(PreparedStatement statement, ISQLCommand sqlCommand) throws SQLException {
+        List<Object> parameters = sqlCommand.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            statement.setObject(i + 1, parameters.get(i));
+        }
+    }
+
     @Override
     public <T extends IDBRecord> IQueryBuilder<T> createQueryBuilder(String table, String primaryKey) {
         return createQueryBuilder(table, primaryKey, null);
@@ -113,4 +374,115 @@ public class SqliteConnection implements IConnection {
     public <T extends IDBRecord> IQueryBuilder<T> createQueryBuilder(String table, String primaryKey, Class<T> model) {
         return new SqliteQueryBuilder<>(primaryKey, table, this, model);
     }
+
+    /**
+     * This is an open query on a borrowed reader, the reader is given back to the pool once it is closed.
+     */
+    private final class RowCursor {
+        private final Connection connection;
+        private final PreparedStatement statement;
+        private final ResultSet resultSet;
+
+        private RowCursor(ISQLCommand sqlCommand, int fetchSize) throws SQLException {
+            connection = pool.borrowReader();
+            statement = pool.prepareQuery(connection, sqlCommand.getSQL());
+            try {
+                bind(statement, sqlCommand);
+                statement.setFetchSize(fetchSize);
+                resultSet = statement.executeQuery();
+            } catch (SQLException e) {
+                pool.release(connection, statement);
+                pool.returnReader(connection);
+                throw e;
+            }
+        }
+
+        private boolean next() throws SQLException {
+            return resultSet.next();
+        }
+
+        private void close() {
+            try {
+                resultSet.close();
+            } catch (SQLException e) {
+                log.error("Unable to close the query", e);
+            } finally {
+                pool.release(connection, statement);
+                pool.returnReader(connection);
+            }
+        }
+    }
+
+    /**
+     * This is a {@link RowCursor} turned into an iterator, it closes itself once the last row has been read.
+     */
+    private static final class MappedCursor<R> implements ICursor<R> {
+        private final RowCursor cursor;
+        private final IRowMapper<R> mapper;
+        private boolean advanced = false;
+        private boolean hasRow = false;
+        private boolean closed = false;
+
+        private MappedCursor(RowCursor cursor, IRowMapper<R> mapper) {
+            this.cursor = cursor;
+            this.mapper = mapper;
+        }
+
+        @SneakyThrows
+        @Override
+        public boolean hasNext() {
+            if (!advanced && !closed) {
+                try {
+                    hasRow = cursor.next();
+                } catch (SQLException e) {
+                    close();
+                    throw e;
+                }
+                advanced = true;
+                if (!hasRow) {
+                    close();
+                }
+            }
+            return hasRow;
+        }
+
+        @SneakyThrows
+        @Override
+        public R next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            advanced = false;
+            try {
+                return mapper.map(cursor.resultSet);
+            } catch (SQLException | RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                hasRow = false;
+                cursor.close();
+            }
+        }
+    }
+
+    /**
+     * This turns rows into {@link CompactRecord}s, the schema is read from the first row.
+     */
+    private static final class RecordMapper implements IRowMapper<IDBRecord> {
+        private RowSchema schema;
+
+        @Override
+        public IDBRecord map(ResultSet row) throws SQLException {
+            if (schema == null) {
+                schema = RowSchema.of(row);
+            }
+            return CompactRecord.read(row, schema);
+        }
+    }
 }
@@ -1,9 +1,10 @@
 package uk.co.bjdavies.db.impl;
 
-import org.apache.commons.lang3.RandomStringUtils;
 import uk.co.bjdavies.api.db.*;
 import uk.co.bjdavies.db.QueryBuilder;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -12,24 +13,25 @@ import java.util.concurrent.atomic.AtomicBoolean;
  */
 public class SqliteQueryBuilder<T extends IDBRecord> extends QueryBuilder<T> {
 
+    /**
+     * This is the alias of the table, it never changes so the same query always has the same SQL.
+     */
+    private static final String TABLE_ALIAS = "t";
+
     public SqliteQueryBuilder(String primaryKey, String tableName, IConnection connection, Class<T> tClass) {
         super(primaryKey, tableName, connection, tClass);
     }
 
     @Override
-    public String buildQuery() {
-        String tableId = RandomStringUtils.randomAlphabetic(5);
+    public ISQLCommand buildStatement() {
+        List<String> values = new ArrayList<>();
         StringBuilder stringBuilder = new StringBuilder();
         stringBuilder.append("SELECT DISTINCT ")
-                .append(columnsToString(tableId))
-                .append(" FROM ")
-                .append(this.tableName)
-                .append(" AS ")
-                .append("`").append(tableId).append("`");
-        stringBuilder.append(buildWhereQueries(tableId));
+                .append(columnsToString())
+                .append(buildFromAndWhere(values));
 
         if (!this.orderColumn.equals("")) {
-            stringBuilder.append(" ORDER BY ").append(tableId).append(".").append(this.orderColumn);
+            stringBuilder.append(" ORDER BY ").append(qualify(this.orderColumn));
             if (!this.reverseOrder) {
                 stringBuilder.append(" ASC");
             } else {
@@ -41,30 +43,91 @@ public class SqliteQueryBuilder<T extends IDBRecord> extends QueryBuilder<T> {
             stringBuilder.append(" LIMIT ").append(this.limit);
         }
 
-        return stringBuilder.toString();
+        return new SQLCommand(stringBuilder.toString(), values);
+    }
+
+    /**
+     * This counts the rows of the query itself, so the count is of the same distinct rows {@link #buildStatement()}
+     * selects even when a join matches a row more than once.
+     *
+     * @return ISQLCommand
+     */
+    @Override
+    protected ISQLCommand buildCountStatement() {
+        ISQLCommand query = buildStatement();
+        return SQLCommand.withParameters("SELECT COUNT(*) FROM (" + query.getSQL() + ")", query.getParameters());
+    }
+
+    @Override
+    protected ISQLCommand buildExistsStatement() {
+        List<String> values = new ArrayList<>();
+        return new SQLCommand("SELECT EXISTS(SELECT 1" + buildFromAndWhere(values) + " LIMIT 1)", values);
     }
 
-    private String buildWhereQueries(String tableId) {
+    private String buildFromAndWhere(List<String> values) {
+        StringBuilder sb = new StringBuilder(" FROM ").append(this.tableName).append(" AS `").append(TABLE_ALIAS)
+                .append("`");
+        for (Join join : this.joins) {
+            sb.append(" INNER JOIN ").append(join.getTable()).append(" AS `").append(join.getAlias()).append("` ON ")
+                    .append(join.getAlias()).append(".").append(join.getColumn()).append(" = ")
+                    .append(qualify(join.getOnColumn()));
+        }
+        return sb.append(buildWhereQueries(values)).toString();
+    }
+
+    /**
+     * This will put the table alias before the column unless it already names the table it is from, such as a column
+     * of a joined table.
+     *
+     * @param column - The column.
+     * @return String
+     */
+    private static String qualify(String column) {
+        return column.contains(".") ? column : TABLE_ALIAS + "." + column;
+    }
+
+    private String buildWhereQueries(List<String> values) {
         if (this.whereStatement == null) {
-            return "";
+            return buildAfter(" WHERE ", values);
         }
         StringBuilder sb = new StringBuilder(" WHERE ");
-        sb.append(whereStatementToString(whereStatement, tableId));
+        if (this.afterColumn != null) {
+            sb.append("(");
+        }
+        sb.append(whereStatementToString(whereStatement, values));
         whereStatement.getGroup().forEach(ws -> {
             if (ws.getOperator() != null) {
                 switch (ws.getOperator()) {
                     case AND:
                     case OR:
-                        sb.append(appendWhereStatementsForOperator(ws, tableId, false));
+                        sb.append(appendWhereStatementsForOperator(ws, values, false));
                         break;
                 }
 
             }
         });
+        if (this.afterColumn != null) {
+            sb.append(")").append(buildAfter(" AND ", values));
+        }
         return sb.toString();
     }
 
-    private String appendWhereStatementsForOperator(WhereStatement statement, String tableId, boolean grouped) {
+    /**
+     * This will build the condition that pages the query from {@link #after(String, Object)}.
+     *
+     * @param prefix - What goes before the condition.
+     * @param values - The values bound to the query.
+     * @return String - Empty if the query isn't paged.
+     */
+    private String buildAfter(String prefix, List<String> values) {
+        if (this.afterColumn == null) {
+            return "";
+        }
+        values.add(this.afterValue);
+        return prefix + qualify(this.afterColumn) + (this.reverseOrder ? " < ?" : " > ?");
+    }
+
+    private String appendWhereStatementsForOperator(WhereStatement statement, List<String> values, boolean grouped) {
         AtomicBoolean firstFound = new AtomicBoolean(true);
         StringBuilder sb = new StringBuilder();
         statement.getGroup().forEach(ws -> {
@@ -76,47 +139,37 @@ public class SqliteQueryBuilder<T extends IDBRecord> extends QueryBuilder<T> {
                     }
                     firstFound.set(false);
                     sb.append(" ( ");
-                    sb.append(appendWhereStatementsForOperator(ws, tableId, true));
+                    sb.append(appendWhereStatementsForOperator(ws, values, true));
                     sb.append(" ) ");
                 } else {
                     sb.append(" ");
                     sb.append(operatorToString(statement.getOperator()));
                     sb.append(" ( ");
-                    sb.append(appendWhereStatementsForOperator(ws, tableId, true));
+                    sb.append(appendWhereStatementsForOperator(ws, values, true));
                     sb.append(" ) ");
                 }
             } else {
                 if (grouped) {
                     if (firstFound.get()) {
-                        sb.append(whereStatementToString(ws, tableId));
+                        sb.append(whereStatementToString(ws, values));
                         firstFound.set(false);
                     } else {
                         sb.append(" ");
                         sb.append(operatorToString(statement.getOperator())).append(" ");
-                        sb.append(whereStatementToString(ws, tableId));
+                        sb.append(whereStatementToString(ws, values));
                     }
                 } else {
                     sb.append(" ");
                     sb.append(operatorToString(statement.getOperator())).append(" ");
-                    sb.append(whereStatementToString(ws, tableId));
+                    sb.append(whereStatementToString(ws, values));
                 }
             }
         });
         return sb.toString();
     }
 
-    private String whereStatementToString(WhereStatement statement, String tableId) {
-        StringBuilder sb = new StringBuilder();
-        sb
-                .append(tableId)
-                .append(".")
-                .append(statement.getKey())
-                .append(comparatorToString(statement.getComparator()))
-                .append("\"")
-                .append(statement.getValue())
-                .append("\"");
-
-        return sb.toString();
+    private String whereStatementToString(WhereStatement statement, List<String> values) {
+        return SqliteCommandBuilder.conditionToString(qualify(statement.getKey()), statement, values);
     }
 
     private String operatorToString(Operator operator) {
@@ -130,39 +183,15 @@ public class SqliteQueryBuilder<T extends IDBRecord> extends QueryBuilder<T> {
         }
     }
 
-    private String comparatorToString(Comparator comparator) {
-        switch (comparator) {
-            case EQUALS:
-                return "=";
-            case NOT_EQUALS:
-                return "<>";
-            case GREATER_THAN:
-                return ">";
-            case LESS_THAN:
-                return "<";
-            case GREATER_THAN_OR_EQUAL_TO:
-                return ">=";
-            case LESS_THAN_OR_EQUAL_TO:
-                return "<=";
-            case LIKE:
-                return "LIKE";
-            case NOT_LIKE:
-                return "NOT LIKE";
-            default:
-                return "";
-        }
-    }
-
-    private String columnsToString(String tableId) {
+    private String columnsToString() {
         StringBuilder stringBuilder = new StringBuilder();
         for (int i = 0; i < this.selectColumns.length; i++) {
             String column = this.selectColumns[i];
-            if (column.contains("*")) {
+            if (column.contains("*") && this.joins.isEmpty()) {
                 return "*";
-            } else {
-                stringBuilder.append(tableId).append(".").append(column)
-                        .append(i < this.selectColumns.length - 1 ? "," : "");
             }
+            // with a join * is only the columns of this table, the joined columns have to be selected by name
+            stringBuilder.append(qualify(column)).append(i < this.selectColumns.length - 1 ? "," : "");
         }
 
         return stringBuilder.toString();
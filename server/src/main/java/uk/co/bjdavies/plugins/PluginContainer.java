@@ -4,6 +4,7 @@ import de.skuzzle.semantic.Version;
 import lombok.extern.log4j.Log4j2;
 import uk.co.bjdavies.api.IApplication;
 import uk.co.bjdavies.api.plugins.*;
+import uk.co.bjdavies.db.DB;
 
 import javax.annotation.Nullable;
 import java.util.HashMap;
@@ -129,6 +130,8 @@ public class PluginContainer implements IPluginContainer {
             Object o = plugins.get(name);
             if (o instanceof IPluginEvents) {
                 ((IPluginEvents) o).onShutdown();
+                // write anything the plugin deferred before it is gone
+                DB.flush();
             }
             plugins.remove(name);
         }
@@ -152,6 +155,7 @@ public class PluginContainer implements IPluginContainer {
                 ((IPluginEvents) v).onShutdown();
             }
         });
+        DB.flush();
     }
 
     @Override
@@ -0,0 +1,74 @@
+package uk.co.bjdavies.variables;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This keeps the values of a variable for a fixed amount of time, methods keep a value for each set of arguments.
+ * <p>
+ * It is exposed as a (Object[])Object handle so it can be used anywhere the variable's own handle is.
+ * </p>
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+final class CachedVariable {
+
+    private static final MethodHandle GET;
+
+    static {
+        try {
+            GET = MethodHandles.lookup().findVirtual(CachedVariable.class, "get",
+                    MethodType.methodType(Object.class, Object[].class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final MethodHandle handle;
+
+    private final Cache<List<Object>, Object> values;
+
+    /**
+     * This will construct the cache.
+     *
+     * @param handle   - The (Object[])Object handle of the variable.
+     * @param duration - How long each value is kept for.
+     * @param unit     - The unit of the duration.
+     */
+    CachedVariable(MethodHandle handle, long duration, TimeUnit unit) {
+        this.handle = handle;
+        this.values = CacheBuilder.newBuilder()
+                .expireAfterWrite(duration, unit)
+                .maximumSize(256)
+                .build();
+    }
+
+    /**
+     * This will return a (Object[])Object handle that reads through this cache.
+     *
+     * @return MethodHandle
+     */
+    MethodHandle toHandle() {
+        return GET.bindTo(this);
+    }
+
+    private Object get(Object[] args) throws Throwable {
+        List<Object> key = Arrays.asList(args);
+        Object value = values.getIfPresent(key);
+        if (value == null) {
+            value = (Object) handle.invokeExact(args);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return value;
+    }
+}
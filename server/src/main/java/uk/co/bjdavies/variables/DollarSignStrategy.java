@@ -15,15 +15,14 @@ import java.util.regex.Pattern;
  */
 
 public class DollarSignStrategy implements VariableStrategy {
-    @Override
-    public String[] parseAllVariables(String toParse) {
-        String patternString = "\\$\\(([a-zA-Z0-9()., ]+)\\)";
 
-        Pattern pattern = Pattern.compile(patternString);
+    private static final Pattern PATTERN = Pattern.compile("\\$\\(([a-zA-Z0-9()., ]+)\\)");
 
+    @Override
+    public String[] parseAllVariables(String toParse) {
         List<String> found = new ArrayList<>();
 
-        Matcher matcher = pattern.matcher(toParse);
+        Matcher matcher = PATTERN.matcher(toParse);
         while (matcher.find()) {
             found.add(matcher.group(1));
         }
@@ -43,4 +42,9 @@ public class DollarSignStrategy implements VariableStrategy {
 
         return updated;
     }
+
+    @Override
+    public Pattern getPattern() {
+        return PATTERN;
+    }
 }
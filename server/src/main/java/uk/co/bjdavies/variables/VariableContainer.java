@@ -3,9 +3,16 @@ package uk.co.bjdavies.variables;
 import lombok.extern.log4j.Log4j2;
 import uk.co.bjdavies.api.variables.IVariableContainer;
 import uk.co.bjdavies.api.variables.Variable;
+import uk.co.bjdavies.api.variables.VariableLifecycle;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -30,6 +37,27 @@ public class VariableContainer implements IVariableContainer {
      */
     private final Map<String, Method> variableMethods;
 
+    /**
+     * This is the Map for the handles of the field variables, resolved once when the field is added.
+     */
+    private final Map<String, MethodHandle> fieldHandles;
+
+    /**
+     * This is the Map for the handles of the method variables, resolved once when the method is added.
+     */
+    private final Map<String, MethodHandle> methodHandles;
+
+    /**
+     * This is the Map of the instances the variables are read from, variables that make a new instance every time
+     * they are used are not in here.
+     */
+    private final Map<String, Object> targets;
+
+    /**
+     * This is the Map of the instances this container made for classes added as a {@link VariableLifecycle#SINGLETON}.
+     */
+    private final Map<Class<?>, Object> singletons;
+
 
     /**
      * This is where the Maps get initialized with the HashMap implementation of Map.
@@ -37,6 +65,10 @@ public class VariableContainer implements IVariableContainer {
     public VariableContainer() {
         variableFields = new HashMap<>();
         variableMethods = new HashMap<>();
+        fieldHandles = new HashMap<>();
+        methodHandles = new HashMap<>();
+        targets = new HashMap<>();
+        singletons = new HashMap<>();
     }
 
 
@@ -46,12 +78,52 @@ public class VariableContainer implements IVariableContainer {
      * @param clazz - The class you want to insert them from.
      */
     public void addAllFrom(Class<?> clazz) {
+        addAllFrom(clazz, VariableLifecycle.PER_EVALUATION);
+    }
+
+    /**
+     * This method will add all the variables (@Variable.class) that are in that class, reading them from instances
+     * that live for the lifecycle specified.
+     *
+     * @param clazz     - The class you want to insert them from.
+     * @param lifecycle - How long the instances of the class live for.
+     */
+    public void addAllFrom(Class<?> clazz, VariableLifecycle lifecycle) {
+        if (lifecycle == VariableLifecycle.PER_EVALUATION) {
+            register(clazz, null);
+            return;
+        }
+
+        Object singleton = singletons.get(clazz);
+        if (singleton == null) {
+            try {
+                singleton = newInstanceHandle(clazz).invoke();
+            } catch (Throwable e) {
+                log.error("Unable to create the variable provider: " + clazz.getName(), e);
+                return;
+            }
+            singletons.put(clazz, singleton);
+        }
+        register(clazz, singleton);
+    }
+
+    /**
+     * This method will add all the variables (@Variable.class) of the provider's class, they will always be read
+     * from the provider.
+     *
+     * @param provider - The instance you want to insert them from.
+     */
+    public void addProvider(Object provider) {
+        register(provider.getClass(), provider);
+    }
+
+    private void register(Class<?> clazz, Object target) {
         for (Method method : clazz.getMethods()) {
-            if (method.isAnnotationPresent(Variable.class)) addMethod(method.getName(), method);
+            if (method.isAnnotationPresent(Variable.class)) addMethod(method.getName(), method, target);
         }
 
         for (Field field : clazz.getFields()) {
-            if (field.isAnnotationPresent(Variable.class)) variableFields.put(field.getName(), field);
+            if (field.isAnnotationPresent(Variable.class)) addField(field.getName(), field, target);
         }
     }
 
@@ -62,10 +134,21 @@ public class VariableContainer implements IVariableContainer {
      * @param method - the method for the variable.
      */
     public void addMethod(String name, Method method) {
+        addMethod(name, method, null);
+    }
+
+    private void addMethod(String name, Method method, Object target) {
         if (variableMethods.containsKey(name) || variableMethods.containsValue(method)) {
             log.error("The key or method is already in the container.");
         } else {
             variableMethods.put(name, method);
+            MethodHandle handle = toHandle(method, target);
+            if (handle != null) {
+                methodHandles.put(name, handle);
+            }
+            if (target != null) {
+                targets.put(name, target);
+            }
         }
     }
 
@@ -77,10 +160,21 @@ public class VariableContainer implements IVariableContainer {
      * @param field - the field for the variable.
      */
     public void addField(String name, Field field) {
+        addField(name, field, null);
+    }
+
+    private void addField(String name, Field field, Object target) {
         if (variableFields.containsKey(name) || variableFields.containsValue(field)) {
             log.error("The key or field is already in the container.");
         } else {
             variableFields.put(name, field);
+            MethodHandle handle = toHandle(field, target);
+            if (handle != null) {
+                fieldHandles.put(name, handle);
+            }
+            if (target != null) {
+                targets.put(name, target);
+            }
         }
     }
 
@@ -92,10 +186,35 @@ public class VariableContainer implements IVariableContainer {
     public void remove(String name) {
         if (variableFields.containsKey(name)) {
             variableFields.remove(name);
+            fieldHandles.remove(name);
         } else if (variableMethods.containsKey(name)) {
             variableMethods.remove(name);
+            methodHandles.remove(name);
         } else {
             log.error("The name specified cannot be found inside this container.");
+            return;
+        }
+
+        release(targets.remove(name));
+    }
+
+    /**
+     * This will close a singleton made by this container once none of the variables use it anymore.
+     *
+     * @param target - The instance the removed variable was read from.
+     */
+    private void release(Object target) {
+        if (target == null || targets.containsValue(target) || singletons.get(target.getClass()) != target) {
+            return;
+        }
+
+        singletons.remove(target.getClass());
+        if (target instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) target).close();
+            } catch (Exception e) {
+                log.error("Unable to close the variable provider: " + target.getClass().getName(), e);
+            }
         }
     }
 
@@ -129,6 +248,94 @@ public class VariableContainer implements IVariableContainer {
         return null;
     }
 
+    @Override
+    public MethodHandle getFieldHandle(String name) {
+        return fieldHandles.get(name);
+    }
+
+    @Override
+    public MethodHandle getMethodHandle(String name) {
+        return methodHandles.get(name);
+    }
+
+    /**
+     * This will make a (Object[])Object handle that reads the field, the array is ignored.
+     *
+     * @param field  - the field for the variable.
+     * @param target - the instance to read it from or null to make a new one each time.
+     * @return MethodHandle or null if it cannot be made.
+     */
+    private MethodHandle toHandle(Field field, Object target) {
+        try {
+            field.setAccessible(true);
+            MethodHandle handle = MethodHandles.lookup().unreflectGetter(field);
+            if (!Modifier.isStatic(field.getModifiers())) {
+                handle = target != null
+                        ? handle.bindTo(target)
+                        : MethodHandles.filterReturnValue(newInstanceHandle(field.getDeclaringClass()), handle);
+            }
+            handle = handle.asType(MethodType.methodType(Object.class));
+            return cached(field, MethodHandles.dropArguments(handle, 0, Object[].class));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.error("Unable to make a handle for variable: " + field.getName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * This will make a (Object[])Object handle that invokes the method with the array as its arguments.
+     *
+     * @param method - the method for the variable.
+     * @param target - the instance to invoke it on or null to make a new one each time.
+     * @return MethodHandle or null if it cannot be made.
+     */
+    private MethodHandle toHandle(Method method, Object target) {
+        try {
+            method.setAccessible(true);
+            MethodHandle handle = MethodHandles.lookup().unreflect(method);
+            if (!Modifier.isStatic(method.getModifiers())) {
+                handle = target != null
+                        ? handle.bindTo(target)
+                        : MethodHandles.collectArguments(handle, 0, newInstanceHandle(method.getDeclaringClass()));
+            }
+            int parameterCount = method.getParameterCount();
+            handle = handle.asType(MethodType.genericMethodType(parameterCount));
+            return cached(method, handle.asSpreader(Object[].class, parameterCount));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.error("Unable to make a handle for variable: " + method.getName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * This will wrap the handle in a {@link CachedVariable} if the variable asks for its value to be kept.
+     *
+     * @param variable - the field or method for the variable.
+     * @param handle   - the (Object[])Object handle of the variable.
+     * @return MethodHandle
+     */
+    private MethodHandle cached(AnnotatedElement variable, MethodHandle handle) {
+        Variable annotation = variable.getAnnotation(Variable.class);
+        if (annotation == null || annotation.cacheFor() <= 0) {
+            return handle;
+        }
+        return new CachedVariable(handle, annotation.cacheFor(), annotation.cacheUnit()).toHandle();
+    }
+
+    /**
+     * This will make a handle that creates a new instance of the class the variable is declared in, it returns the
+     * class itself so it can be combined with the variable's getter or method.
+     *
+     * @param clazz - the class the variable is declared in.
+     * @return MethodHandle
+     * @throws ReflectiveOperationException if the class has no empty constructor.
+     */
+    private MethodHandle newInstanceHandle(Class<?> clazz) throws ReflectiveOperationException {
+        Constructor<?> constructor = clazz.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        return MethodHandles.lookup().unreflectConstructor(constructor);
+    }
+
     /**
      * This checks whether the variable exists in this container.
      *
@@ -3,6 +3,7 @@ package uk.co.bjdavies.variables;
 import com.google.inject.AbstractModule;
 import lombok.Getter;
 import uk.co.bjdavies.api.variables.IVariableContainer;
+import uk.co.bjdavies.api.variables.VariableLifecycle;
 
 /**
  * @author ben.davies99@outlook.com (Ben Davies)
@@ -16,7 +17,7 @@ public class VariableModule extends AbstractModule {
 
     public VariableModule() {
         container = new VariableContainer();
-        container.addAllFrom(GlobalVariables.class);
+        container.addAllFrom(GlobalVariables.class, VariableLifecycle.SINGLETON);
     }
 
     @Override
@@ -1,5 +1,7 @@
 package uk.co.bjdavies.variables;
 
+import java.util.regex.Pattern;
+
 /**
  * BabbleBot, open-source Discord Bot
  * Licence: GPL V3
@@ -13,4 +15,11 @@ public interface VariableStrategy {
     String[] parseAllVariables(String toParse);
 
     String removeTagsFromString(String toParse);
+
+    /**
+     * This will return the pattern that finds a variable's tags, group 1 being the variable inside of them.
+     *
+     * @return Pattern
+     */
+    Pattern getPattern();
 }
@@ -0,0 +1,99 @@
+package uk.co.bjdavies.variables;
+
+import lombok.extern.log4j.Log4j2;
+import uk.co.bjdavies.api.variables.IVariableContainer;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This is a compiled command response, it is a list of literal text and variables which can be rendered as many
+ * times as needed without parsing the response again.
+ * <p>
+ * Use {@link VariableTemplateCompiler} to make one.
+ * </p>
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+@Log4j2
+public final class VariableTemplate {
+
+    private final List<Segment> segments;
+
+    /**
+     * This is the length of all the literal text, used to size the output.
+     */
+    private final int literalLength;
+
+    VariableTemplate(List<Segment> segments, int literalLength) {
+        this.segments = Collections.unmodifiableList(segments);
+        this.literalLength = literalLength;
+    }
+
+    /**
+     * This will render the template, any variable that cannot be found in the container is written out as its name.
+     *
+     * @param container - The container to read the variables from.
+     * @return String
+     */
+    public String render(IVariableContainer container) {
+        StringBuilder sb = new StringBuilder(literalLength + 16 * segments.size());
+        for (Segment segment : segments) {
+            segment.appendTo(sb, container);
+        }
+        return sb.toString();
+    }
+
+    interface Segment {
+        void appendTo(StringBuilder sb, IVariableContainer container);
+    }
+
+    static final class LiteralSegment implements Segment {
+        private final String text;
+
+        LiteralSegment(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public void appendTo(StringBuilder sb, IVariableContainer container) {
+            sb.append(text);
+        }
+    }
+
+    static final class VariableSegment implements Segment {
+        /**
+         * This is the variable as it was written without its tags e.g. getRandomGIF(5)
+         */
+        private final String expression;
+        private final String name;
+        private final boolean function;
+        private final Object[] args;
+
+        VariableSegment(String expression, String name, boolean function, Object[] args) {
+            this.expression = expression;
+            this.name = name;
+            this.function = function;
+            this.args = args;
+        }
+
+        @Override
+        public void appendTo(StringBuilder sb, IVariableContainer container) {
+            MethodHandle handle = function ? container.getMethodHandle(name) : container.getFieldHandle(name);
+            if (handle == null) {
+                sb.append(expression);
+                return;
+            }
+
+            try {
+                Object value = (Object) handle.invokeExact(args);
+                sb.append(value == null ? expression : value.toString());
+            } catch (Throwable e) {
+                log.error("Unable to read variable: " + expression, e);
+                sb.append(expression);
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package uk.co.bjdavies.variables;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This will compile command responses into {@link VariableTemplate}s and keep the most recently used ones so the
+ * same response is only ever parsed once.
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+public final class VariableTemplateCompiler {
+
+    private static final Pattern PARAMETER_PATTERN = Pattern.compile("(([a-zA-Z0-9. ]+),|([a-zA-Z0-9. ]+))");
+
+    private static final Pattern METHOD_WITH_PARAMS_PATTERN = Pattern.compile("[a-zA-Z0-9.]+\\([a-zA-Z0-9()., ]+\\)");
+
+    private final VariableStrategy variableStrategy;
+
+    private final LoadingCache<String, VariableTemplate> templates;
+
+    /**
+     * This will construct the compiler.
+     *
+     * @param variableStrategy - The strategy that determines the tags that are used for variables.
+     * @param maximumSize      - The most templates to keep.
+     */
+    public VariableTemplateCompiler(VariableStrategy variableStrategy, long maximumSize) {
+        this.variableStrategy = variableStrategy;
+        this.templates = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .build(CacheLoader.from(this::parse));
+    }
+
+    /**
+     * This will return the template for the command response, parsing it if it hasn't been seen recently.
+     *
+     * @param commandResponse - The response of the command.
+     * @return VariableTemplate
+     */
+    public VariableTemplate compile(String commandResponse) {
+        return templates.getUnchecked(commandResponse);
+    }
+
+    private VariableTemplate parse(String commandResponse) {
+        List<VariableTemplate.Segment> segments = new ArrayList<>();
+        int literalLength = 0;
+        int last = 0;
+
+        Matcher matcher = variableStrategy.getPattern().matcher(commandResponse);
+        while (matcher.find()) {
+            if (matcher.start() > last) {
+                segments.add(new VariableTemplate.LiteralSegment(commandResponse.substring(last, matcher.start())));
+                literalLength += matcher.start() - last;
+            }
+            segments.add(parseVariable(matcher.group(1)));
+            last = matcher.end();
+        }
+
+        if (last < commandResponse.length()) {
+            segments.add(new VariableTemplate.LiteralSegment(commandResponse.substring(last)));
+            literalLength += commandResponse.length() - last;
+        }
+
+        return new VariableTemplate(segments, literalLength);
+    }
+
+    /**
+     * This will parse a variable without its tags e.g. testVar or getRandomGIF(5)
+     *
+     * @param variable - The variable being parsed.
+     * @return Segment
+     */
+    private VariableTemplate.Segment parseVariable(String variable) {
+        if (!(variable.contains("(") && variable.contains(")"))) {
+            return new VariableTemplate.VariableSegment(variable, variable, false, new Object[0]);
+        }
+
+        if (!METHOD_WITH_PARAMS_PATTERN.matcher(variable).matches()) {
+            return new VariableTemplate.VariableSegment(variable, variable.replace("()", ""), true, new Object[0]);
+        }
+
+        String name = variable.replaceFirst("\\([a-zA-Z0-9()., ]+\\)", "");
+        return new VariableTemplate.VariableSegment(variable, name, true, getMethodParams(variable));
+    }
+
+    /**
+     * This parses the parameters of the variable passed by the command response and will make an Object[] of all the
+     * params. Which will get passed into the method that gets invoked.
+     *
+     * @param variable - The variable name that is being parsed e.g. getRandomGIF(example)
+     * @return Object[]
+     */
+    private Object[] getMethodParams(String variable) {
+        List<Object> objects = new ArrayList<>();
+
+        Matcher matcher = PARAMETER_PATTERN.matcher(variable.substring(variable.indexOf("(") + 1,
+                variable.indexOf(")")));
+        while (matcher.find()) {
+            String param = matcher.group(1).replace(",", "");
+            if (isBoolean(param)) {
+                objects.add(Boolean.parseBoolean(param));
+            } else if (isFloat(param)) {
+                objects.add(Float.parseFloat(param));
+            } else if (isInteger(param)) {
+                objects.add(Integer.parseInt(param));
+            } else if (param.contains("\"")) {
+                objects.add(param.replace("\"", ""));
+            } else {
+                objects.add(param);
+            }
+        }
+
+        return objects.toArray(new Object[0]);
+    }
+
+    private boolean isBoolean(String val) {
+        return val.equalsIgnoreCase("true") || val.equalsIgnoreCase("false");
+    }
+
+    private boolean isFloat(String val) {
+        try {
+            //noinspection ResultOfMethodCallIgnored
+            Float.parseFloat(val);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isInteger(String val) {
+        try {
+            Integer.parseInt(val);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return true;
+    }
+}
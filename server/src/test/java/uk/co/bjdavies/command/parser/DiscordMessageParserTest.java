@@ -0,0 +1,80 @@
+package uk.co.bjdavies.command.parser;
+
+import org.junit.jupiter.api.Test;
+import uk.co.bjdavies.api.command.ICommandContext;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+class DiscordMessageParserTest {
+
+    /**
+     * These are the names of every parameter used in the messages below.
+     */
+    private static final String[] PARAMETER_NAMES = {"a", "b", "c", "e", "v", "x", "url", "name", "flag", "dash"};
+
+    private final MessageParser parser = new DiscordMessageParser(null);
+    private final MessageParser regexParser = new RegexMessageParser();
+
+    @Test
+    void parsesTheSameAsTheRegexParser() {
+        String[] messages = {
+                // no arguments
+                "help", "help ", "", " ", "HELP Me", "say hello world",
+                // flags with and without values
+                "ping -v", "say -a -b -c", "say -a=1 -b=2 rest", "say value -flag", "say text-with -dash",
+                "say  -a  b", "say -a=b-c", "say -a=b=c", "say -x=1 -x",
+                "play -url=http://x.com/a?b=c&d=e song",
+                // quoted values
+                "say -name=\"bob\" hello world", "say -a=\"b\"c d", "say -name=\"\" x", "say -x=\"a b\" c",
+                // empty flags and values
+                "say -=x", "say - x", "say --x", "say -name= x",
+                // no command name, e.g. only the prefix was sent
+                "-a=1", "-a", " -a=1 x", " hello"
+        };
+        for (String message : messages) {
+            assertSameContext(regexParser.parseString(message), parser.parseString(message), message);
+        }
+    }
+
+    @Test
+    void keepsTheSpacingOfTheValueAroundFlags() {
+        // the regex parser removed the flag and left both spaces around it
+        assertEquals("hello hello", parser.parseString("say hello -x hello").getValue());
+        assertEquals("a d", parser.parseString("say a -b=c d -e").getValue());
+    }
+
+    @Test
+    void keepsTheValueOfAFlagGivenTwice() {
+        // the regex parser let a later flag without a value replace an earlier one with a value
+        assertEquals("1", parser.parseString("say -x -x=1").getParameter("x"));
+    }
+
+    @Test
+    void parsesAQuotedValue() {
+        ICommandContext context = parser.parseString("Play -url=\"http://x.com/a?b=c\" -loud now");
+        assertEquals("play", context.getCommandName());
+        assertEquals("http://x.com/a?b=c", context.getParameter("url"));
+        assertTrue(context.hasParameter("loud"));
+        assertFalse(context.hasNonEmptyParameter("loud"));
+        assertEquals("now", context.getValue());
+    }
+
+    private static void assertSameContext(ICommandContext expected, ICommandContext actual, String message) {
+        assertAll(message,
+                () -> assertEquals(expected.getCommandName(), actual.getCommandName(), "command name"),
+                () -> assertEquals(expected.getValue(), actual.getValue(), "value"),
+                () -> {
+                    for (String name : PARAMETER_NAMES) {
+                        assertEquals(expected.hasParameter(name), actual.hasParameter(name), "has " + name);
+                        assertEquals(expected.getParameter(name), actual.getParameter(name), "parameter " + name);
+                    }
+                });
+    }
+}
@@ -0,0 +1,86 @@
+package uk.co.bjdavies.command.parser;
+
+import uk.co.bjdavies.api.command.ICommandContext;
+import uk.co.bjdavies.command.CommandContext;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This is the regex parser that {@link DiscordMessageParser} replaced, it is kept to check the new parser against and
+ * to benchmark it.
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+public class RegexMessageParser implements MessageParser {
+
+    @Override
+    public ICommandContext parseString(String message) {
+        return new CommandContext(parseCommandName(message).toLowerCase(), parseParams(message), parseValue(message),
+                "Discord", null);
+    }
+
+    private String parseValue(String message) {
+        Matcher matcher = getParameterMatcher(message);
+        message = message.replace(parseCommandName(message), "");
+        while (matcher.find()) {
+            message = message.replace(matcher.group().trim(), "");
+        }
+
+        matcher = getRawParameters(message);
+        while (matcher.find()) {
+            message = message.replace(matcher.group().trim(), "");
+        }
+
+        return message.trim();
+    }
+
+    private String parseCommandName(String message) {
+        int indexOfFirstSpace = message.indexOf(" ");
+
+        if (indexOfFirstSpace == -1) {
+            return message;
+        } else {
+            return message.substring(0, indexOfFirstSpace).trim();
+        }
+    }
+
+    private Map<String, String> parseParams(String message) {
+        Map<String, String> params = new HashMap<>();
+        Matcher matcher = getParameterMatcher(message);
+        String copy = new String(message.getBytes());
+        while (matcher.find()) {
+            String name = matcher.group(1).trim();
+            String value = matcher.group(2).replaceAll("\"", "").trim();
+            params.put(name, value);
+            copy = copy.replace(matcher.group().trim(), "");
+        }
+
+        matcher = getRawParameters(copy);
+        while (matcher.find()) {
+            String name = matcher.group(1).trim();
+            params.put(name, "");
+        }
+
+        return params;
+    }
+
+    private Matcher getParameterMatcher(String message) {
+        String parameterRegex = " -([a-zA-Z0-9]+)=(([a-zA-Z0-9:/?=&_.\\-]+)|(\"([a-zA-Z0-9:/?=&_.\\-]+)\"))";
+
+        Pattern pattern = Pattern.compile(parameterRegex);
+
+        return pattern.matcher(message);
+    }
+
+    private Matcher getRawParameters(String message) {
+        String parameterRegex = " -([a-zA-Z0-9]+)";
+
+        Pattern pattern = Pattern.compile(parameterRegex);
+
+        return pattern.matcher(message);
+    }
+}
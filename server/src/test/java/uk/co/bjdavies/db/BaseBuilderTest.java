@@ -0,0 +1,145 @@
+package uk.co.bjdavies.db;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.co.bjdavies.api.db.Comparator;
+import uk.co.bjdavies.api.db.IDBRecord;
+import uk.co.bjdavies.api.db.WhereStatement;
+
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+class BaseBuilderTest extends DatabaseTest {
+
+    private static final int ROWS = 1200;
+    private static final int[] SIZES = {BaseBuilder.MAX_IN_VALUES - 1, BaseBuilder.MAX_IN_VALUES,
+            BaseBuilder.MAX_IN_VALUES + 1, BaseBuilder.MAX_IN_VALUES * 2, BaseBuilder.MAX_IN_VALUES * 2 + 1};
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        createItems(ROWS);
+    }
+
+    @Test
+    void queriesEveryChunk() {
+        for (int size : SIZES) {
+            List<Integer> ids = ids(1, size);
+
+            assertEquals(size, DB.table(ITEMS).whereIn("id", ids).get().size(), "get of " + size);
+            assertEquals(size, DB.table(ITEMS).whereIn("id", ids).count(), "count of " + size);
+            assertTrue(DB.table(ITEMS).whereIn("id", ids).exists(), "exists of " + size);
+        }
+    }
+
+    @Test
+    void findsARowOnlyInTheLastChunk() {
+        List<Integer> ids = ids(ROWS + 1, BaseBuilder.MAX_IN_VALUES * 2);
+        ids.add(ROWS);
+
+        assertTrue(DB.table(ITEMS).whereIn("id", ids).exists());
+        assertEquals(1, DB.table(ITEMS).whereIn("id", ids).count());
+        assertFalse(DB.table(ITEMS).whereIn("id", ids(ROWS + 1, BaseBuilder.MAX_IN_VALUES * 2)).exists());
+    }
+
+    @Test
+    void updatesEveryChunk() {
+        List<Integer> ids = ids(1, BaseBuilder.MAX_IN_VALUES * 2 + 1);
+
+        assertTrue(DB.command(ITEMS).whereIn("id", ids).update(Map.of("name", "changed")));
+
+        assertEquals(ids.size(), DB.table(ITEMS).where("name", "changed").count());
+    }
+
+    @Test
+    void deletesEveryChunk() {
+        List<Integer> ids = ids(1, BaseBuilder.MAX_IN_VALUES * 2 + 1);
+
+        assertTrue(DB.command(ITEMS).whereIn("id", ids).delete());
+
+        assertEquals(ROWS - ids.size(), DB.table(ITEMS).count());
+        assertFalse(DB.table(ITEMS).whereIn("id", ids).exists());
+    }
+
+    @Test
+    void repeatedValuesDoNotRepeatRows() {
+        List<Integer> ids = ids(1, BaseBuilder.MAX_IN_VALUES + 100);
+        // the same ids again so each one is in two different chunks
+        ids.addAll(ids(1, BaseBuilder.MAX_IN_VALUES + 100));
+
+        List<Integer> found = DB.table(ITEMS).whereIn("id", ids).get().stream()
+                .map(row -> row.getInt("id")).sorted().collect(Collectors.toList());
+
+        assertEquals(ids(1, BaseBuilder.MAX_IN_VALUES + 100), found);
+        assertEquals(BaseBuilder.MAX_IN_VALUES + 100, DB.table(ITEMS).whereIn("id", ids).count());
+    }
+
+    @Test
+    void chunksAnInListInsideACompoundWhere() {
+        List<Integer> ids = ids(1, BaseBuilder.MAX_IN_VALUES * 2);
+
+        assertEquals(900, DB.table(ITEMS).where("id", Comparator.GREATER_THAN, 100).whereIn("id", ids).get().size());
+        assertEquals(900, DB.table(ITEMS).where("id", Comparator.GREATER_THAN, 100).whereIn("id", ids).count());
+        assertEquals(ids.size(), DB.table(ITEMS).where("name", Comparator.LIKE, "item %")
+                .and(new WhereStatement("id", ids, Comparator.IN)).count());
+        assertTrue(DB.command(ITEMS).where("id", Comparator.GREATER_THAN, 100).whereIn("id", ids).delete());
+
+        assertEquals(ROWS - 900, DB.table(ITEMS).count());
+    }
+
+    @Test
+    void doesNotRepeatRowsMatchedByTheOtherSideOfAnOr() {
+        List<Integer> ids = ids(1, BaseBuilder.MAX_IN_VALUES * 2);
+
+        // item 1100 isn't in the list so every chunk finds it
+        List<Map<String, Object>> rows = DB.table(ITEMS).whereIn("id", ids)
+                .or(new WhereStatement("name", "item 1100")).get().stream()
+                .map(IDBRecord::getData).collect(Collectors.toList());
+
+        assertEquals(ids.size() + 1, rows.size());
+        assertEquals(ids.size() + 1, new HashSet<>(rows).size());
+        assertEquals(ids.size() + 1, DB.table(ITEMS).where("name", "item 1100")
+                .or(new WhereStatement("id", ids, Comparator.IN)).count());
+        assertEquals(10, DB.table(ITEMS).whereIn("id", ids).or(new WhereStatement("name", "item 1100"))
+                .limit(10).get().size());
+    }
+
+    @Test
+    void limitsAChunkedQuery() {
+        List<Integer> ids = ids(1, BaseBuilder.MAX_IN_VALUES * 2);
+
+        assertEquals(10, DB.table(ITEMS).whereIn("id", ids).limit(10).get().size());
+        assertEquals(10, DB.table(ITEMS).whereIn("id", ids).limit(10).count());
+        assertTrue(DB.table(ITEMS).whereIn("id", ids).first().isPresent());
+    }
+
+    @Test
+    void refusesWhatCanNotBeChunked() {
+        List<Integer> ids = ids(1, BaseBuilder.MAX_IN_VALUES + 1);
+
+        assertThrows(IllegalStateException.class, () -> DB.table(ITEMS).whereNotIn("id", ids).get());
+        assertThrows(IllegalStateException.class, () -> DB.command(ITEMS).whereNotIn("id", ids).delete());
+        assertThrows(IllegalStateException.class, () -> DB.table(ITEMS).whereIn("id", ids).orderBy("id").get());
+        assertThrows(IllegalStateException.class, () -> DB.table(ITEMS).whereIn("id", ids).after("id", 10).get());
+        assertThrows(IllegalStateException.class,
+                () -> DB.table(ITEMS).whereIn("id", ids).whereIn("name", ids).count());
+
+        assertEquals(ROWS, DB.table(ITEMS).count());
+    }
+
+    private static List<Integer> ids(int from, int size) {
+        return IntStream.range(from, from + size).boxed().collect(Collectors.toList());
+    }
+}
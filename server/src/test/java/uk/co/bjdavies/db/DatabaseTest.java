@@ -0,0 +1,67 @@
+package uk.co.bjdavies.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import uk.co.bjdavies.api.config.IDatabaseConfig;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This is the base of the tests that use the database, each test gets a new SQLite database of its own that is
+ * installed before it runs and shut down after.
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+public abstract class DatabaseTest {
+
+    /**
+     * This is the table made by {@link #createItems(int)}.
+     */
+    protected static final String ITEMS = "items";
+
+    @TempDir
+    protected Path directory;
+
+    @BeforeEach
+    void installDatabase() {
+        DB.install(config());
+    }
+
+    @AfterEach
+    void shutdownDatabase() {
+        DB.shutdown();
+    }
+
+    /**
+     * This is the config the database is installed with, override it to change the config.
+     *
+     * @return IDatabaseConfig
+     */
+    protected IDatabaseConfig config() {
+        return new TestDatabaseConfig(directory.resolve("test.db").toString());
+    }
+
+    /**
+     * This will make the {@link #ITEMS} table with an id and a name of "item " + id for each row. The rows are
+     * inserted from the last id to the first so they only come back in order if they are ordered.
+     *
+     * @param rows - The number of rows, the ids go from 1 to rows.
+     * @throws SQLException if the table cannot be made.
+     */
+    protected static void createItems(int rows) throws SQLException {
+        DB.getConnection().execute("CREATE TABLE " + ITEMS + " (id INTEGER PRIMARY KEY, name TEXT NOT NULL)");
+        List<Map<String, Object>> values = new ArrayList<>(rows);
+        for (int id = rows; id >= 1; id--) {
+            values.add(Map.of("id", id, "name", "item " + id));
+        }
+        assertEquals(rows, DB.insertMany(ITEMS, values));
+    }
+}
@@ -0,0 +1,129 @@
+package uk.co.bjdavies.db;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.co.bjdavies.api.db.InMemory;
+import uk.co.bjdavies.api.db.fields.IntField;
+import uk.co.bjdavies.api.db.fields.PrimaryField;
+import uk.co.bjdavies.api.db.fields.StringField;
+import uk.co.bjdavies.db.impl.ImplModel;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+class InMemoryTablesTest extends DatabaseTest {
+
+    private InMemoryTables tables;
+
+    @BeforeEach
+    void setUp() {
+        ModelUtils.createTable(Channel.class);
+        tables = DB.inMemoryTables();
+        insert(1, "general", 10);
+        insert(2, "random", 10);
+    }
+
+    @Test
+    void selectsByTheIndex() {
+        assertEquals(List.of(1), ids(tables.select(Channel.class, "name", "general", -1)));
+        assertEquals(2, tables.select(Channel.class, "guildId", "10", -1).size());
+        assertEquals(1, tables.select(Channel.class, "guildId", "10", 1).size());
+        assertEquals(2, tables.select(Channel.class, null, null, -1).size());
+    }
+
+    @Test
+    void numbersMatchByValue() {
+        assertEquals(2, tables.select(Channel.class, "guildId", "10.0", -1).size());
+        assertTrue(tables.select(Channel.class, "name", "10", -1).isEmpty());
+    }
+
+    @Test
+    void writeIsSeenAsSoonAsItReturns() {
+        tables.select(Channel.class, null, null, -1);
+
+        insert(3, "music", 20);
+        assertEquals(List.of(3), ids(tables.select(Channel.class, "guildId", "20", -1)));
+
+        DB.command("channels").where("id", 3).update(Map.of("name", "voice"));
+        assertTrue(tables.select(Channel.class, "name", "music", -1).isEmpty());
+        assertEquals(List.of(3), ids(tables.select(Channel.class, "name", "voice", -1)));
+
+        DB.command("channels").where("id", 3).delete();
+        assertTrue(tables.select(Channel.class, "guildId", "20", -1).isEmpty());
+    }
+
+    @Test
+    void transactionIsSeenOnceItHasFinished() {
+        tables.select(Channel.class, null, null, -1);
+
+        DB.transaction(transaction -> {
+            transaction.command("channels").insert(Map.of("id", 3, "name", "music", "guildId", 20));
+            transaction.rollback();
+        });
+        assertTrue(tables.select(Channel.class, "guildId", "20", -1).isEmpty());
+
+        DB.transaction(transaction ->
+                transaction.command("channels").insert(Map.of("id", 3, "name", "music", "guildId", 20)));
+        assertEquals(List.of(3), ids(tables.select(Channel.class, "guildId", "20", -1)));
+    }
+
+    @Test
+    void readsDoNotTouchTheDatabase() throws SQLException {
+        tables.select(Channel.class, null, null, -1);
+        // this isn't a write through a builder so the snapshot is kept
+        DB.getConnection().execute("ALTER TABLE channels RENAME TO moved");
+
+        assertEquals(List.of(1), ids(tables.select(Channel.class, "name", "general", -1)));
+    }
+
+    @Test
+    void failedReloadIsNotServedFromTheOldSnapshot() throws SQLException {
+        tables.select(Channel.class, null, null, -1);
+        DB.getConnection().execute("ALTER TABLE channels RENAME TO moved");
+        tables.reload("channels");
+
+        // the table can't be read so neither can the rows
+        assertThrows(SQLException.class, () -> tables.select(Channel.class, "name", "general", -1));
+
+        DB.getConnection().execute("ALTER TABLE moved RENAME TO channels");
+        DB.getConnection().execute("INSERT INTO channels (id, name, guildId) VALUES (3, 'music', 20)");
+
+        assertEquals(List.of(3), ids(tables.select(Channel.class, "guildId", "20", -1)));
+    }
+
+    private static void insert(int id, String name, int guildId) {
+        assertTrue(DB.insert("channels", Map.of("id", id, "name", name, "guildId", guildId)));
+    }
+
+    private static List<Integer> ids(List<Map<String, Object>> rows) {
+        return rows.stream().map(row -> ((Number) row.get("id")).intValue()).sorted()
+                .collect(Collectors.toList());
+    }
+
+    @InMemory(index = {"name", "guildId"})
+    static class Channel extends ImplModel {
+
+        @IntField
+        @PrimaryField
+        private int id;
+
+        @StringField(charLimit = 255)
+        private String name;
+
+        @IntField
+        private int guildId;
+
+        Channel() {
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package uk.co.bjdavies.db;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.co.bjdavies.api.db.Cached;
+import uk.co.bjdavies.api.db.fields.IntField;
+import uk.co.bjdavies.api.db.fields.PrimaryField;
+import uk.co.bjdavies.api.db.fields.StringField;
+import uk.co.bjdavies.db.impl.ImplModel;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+class ModelCacheTest extends DatabaseTest {
+
+    private Tag tag;
+
+    @BeforeEach
+    void setUp() {
+        tag = new Tag("first", "red");
+        tag.save();
+    }
+
+    @Test
+    void secondLookupIsCached() {
+        assertEquals("red", findByName("first").getColour());
+        assertEquals("red", findByName("first").getColour());
+
+        assertEquals(1, DB.modelCache().stats(Tag.class).hitCount());
+        assertEquals(1, DB.modelCache().stats(Tag.class).missCount());
+    }
+
+    @Test
+    void onlyDeclaredColumnsAreCached() {
+        assertTrue(DB.modelCache().isCached(Tag.class, "id"));
+        assertTrue(DB.modelCache().isCached(Tag.class, "NAME"));
+        assertFalse(DB.modelCache().isCached(Tag.class, "colour"));
+        assertFalse(DB.modelCache().isCached(Note.class, "id"));
+        assertFalse(new ModelCache(false).isCached(Tag.class, "id"));
+    }
+
+    @Test
+    void eachLookupGetsItsOwnModels() {
+        findByName("first").setColour("blue");
+
+        assertEquals("red", findByName("first").getColour());
+    }
+
+    @Test
+    void writeClearsTheTable() {
+        findByName("first");
+
+        tag.setColour("blue");
+        tag.save();
+
+        assertEquals("blue", findByName("first").getColour());
+        assertEquals("blue", ModelUtils.find(Tag.class, tag.getId()).orElseThrow().getColour());
+    }
+
+    @Test
+    void transactionSeesItsOwnWritesAndClearsTheTableOnceFinished() {
+        findByName("first");
+
+        DB.transaction(transaction -> {
+            transaction.command("tags").where("id", tag.getId()).update(Map.of("colour", "blue"));
+            assertEquals("blue", findByName("first").getColour());
+        });
+
+        assertEquals("blue", findByName("first").getColour());
+    }
+
+    @Test
+    void rollbackClearsTheTable() {
+        findByName("first");
+
+        DB.transaction(transaction -> {
+            transaction.command("tags").where("id", tag.getId()).update(Map.of("colour", "blue"));
+            findByName("first");
+            transaction.rollback();
+        });
+
+        assertEquals("red", findByName("first").getColour());
+    }
+
+    @Test
+    void rowsReadDuringAWriteAreNotKept() throws Exception {
+        ModelCache cache = DB.modelCache();
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(Tag.class, "name", "first", -1, () -> {
+            loads.incrementAndGet();
+            // a write lands while the rows are being read
+            cache.invalidate("tags");
+            return List.of(tag);
+        });
+        cache.get(Tag.class, "name", "first", -1, () -> {
+            loads.incrementAndGet();
+            return List.of(tag);
+        });
+
+        assertEquals(2, loads.get());
+    }
+
+    private static Tag findByName(String name) {
+        return ModelUtils.where(Tag.class, "name", name).<Tag>first().orElseThrow();
+    }
+
+    @Cached(lookup = {"name"})
+    static class Tag extends ImplModel {
+
+        @IntField
+        @PrimaryField
+        private int id;
+
+        @StringField(charLimit = 255)
+        private String name;
+
+        @StringField(charLimit = 255)
+        private String colour;
+
+        Tag() {
+        }
+
+        Tag(String name, String colour) {
+            this.name = name;
+            this.colour = colour;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getColour() {
+            return colour;
+        }
+
+        public void setColour(String colour) {
+            this.colour = colour;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package uk.co.bjdavies.db;
+
+import uk.co.bjdavies.api.db.fields.IntField;
+import uk.co.bjdavies.api.db.fields.PrimaryField;
+import uk.co.bjdavies.api.db.fields.StringField;
+import uk.co.bjdavies.api.db.fields.Unique;
+import uk.co.bjdavies.db.impl.ImplModel;
+
+/**
+ * This is the model the database tests save, its table is notes and no two notes can have the same body.
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+public class Note extends ImplModel {
+
+    @IntField
+    @PrimaryField
+    private int id;
+
+    @StringField(charLimit = 255)
+    @Unique
+    private String body;
+
+    public Note() {
+    }
+
+    public Note(String body) {
+        this.body = body;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+}
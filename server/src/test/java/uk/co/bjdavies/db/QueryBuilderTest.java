@@ -0,0 +1,146 @@
+package uk.co.bjdavies.db;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.co.bjdavies.api.db.ICursor;
+import uk.co.bjdavies.api.db.IDBRecord;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+class QueryBuilderTest extends DatabaseTest {
+
+    private static final int ROWS = 250;
+    private static final int PAGE = 100;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        createItems(ROWS);
+    }
+
+    @Test
+    void cursorReadsEveryRowInOrder() {
+        List<Integer> ids = new ArrayList<>();
+        try (ICursor<IDBRecord> cursor = DB.<IDBRecord>table(ITEMS).orderBy("id").cursor(PAGE / 4)) {
+            while (cursor.hasNext()) {
+                ids.add(cursor.next().getInt("id"));
+            }
+            assertFalse(cursor.hasNext());
+        }
+
+        assertEquals(range(1, ROWS), ids);
+    }
+
+    @Test
+    void cursorClosedEarlyGivesTheConnectionBack() {
+        // more cursors than there are readers, each one has to be given back for the next to open
+        for (int i = 0; i < 50; i++) {
+            try (ICursor<IDBRecord> cursor = DB.<IDBRecord>table(ITEMS).orderBy("id").cursor()) {
+                assertTrue(cursor.hasNext());
+                assertEquals(1, cursor.next().getInt("id"));
+            }
+        }
+
+        assertEquals(ROWS, DB.table(ITEMS).count());
+    }
+
+    @Test
+    void cursorOnlyReadsTheRowsThatMatch() {
+        try (ICursor<IDBRecord> cursor = DB.<IDBRecord>table(ITEMS).where("name", "item 7").cursor()) {
+            assertTrue(cursor.hasNext());
+            assertEquals(7, cursor.next().getInt("id"));
+            assertFalse(cursor.hasNext());
+        }
+    }
+
+    @Test
+    void cursorInsideATransactionSeesItsWrites() {
+        DB.transaction(transaction -> {
+            transaction.command(ITEMS).insert(Map.of("id", ROWS + 1, "name", "uncommitted"));
+            try (ICursor<IDBRecord> cursor = DB.<IDBRecord>table(ITEMS).where("name", "uncommitted").cursor()) {
+                assertTrue(cursor.hasNext());
+                assertEquals(ROWS + 1, cursor.next().getInt("id"));
+            }
+            transaction.rollback();
+        });
+    }
+
+    @Test
+    void keysetPagingVisitsEveryRowOnce() {
+        List<Integer> ids = new ArrayList<>();
+        int pages = 0;
+        int lastId = 0;
+        while (true) {
+            List<IDBRecord> page = DB.<IDBRecord>table(ITEMS).after("id", lastId).limit(PAGE).get();
+            if (page.isEmpty()) {
+                break;
+            }
+            pages++;
+            page.forEach(row -> ids.add(row.getInt("id")));
+            lastId = page.get(page.size() - 1).getInt("id");
+        }
+
+        assertEquals((ROWS + PAGE - 1) / PAGE, pages);
+        assertEquals(range(1, ROWS), ids);
+    }
+
+    @Test
+    void reversedKeysetPagingGoesDownwards() {
+        List<Integer> ids = new ArrayList<>();
+        int lastId = ROWS + 1;
+        while (true) {
+            List<IDBRecord> page = DB.<IDBRecord>table(ITEMS).after("id", lastId).reverse().limit(PAGE).get();
+            if (page.isEmpty()) {
+                break;
+            }
+            page.forEach(row -> ids.add(row.getInt("id")));
+            lastId = page.get(page.size() - 1).getInt("id");
+        }
+
+        List<Integer> expected = range(1, ROWS);
+        expected.sort(java.util.Comparator.reverseOrder());
+        assertEquals(expected, ids);
+    }
+
+    @Test
+    void keysetPagingKeepsTheWhere() {
+        List<IDBRecord> page = DB.<IDBRecord>table(ITEMS).where("name", "item 200").after("id", 100).limit(PAGE)
+                .get();
+
+        assertEquals(1, page.size());
+        assertEquals(200, page.get(0).getInt("id"));
+        assertTrue(DB.<IDBRecord>table(ITEMS).where("name", "item 50").after("id", 100).get().isEmpty());
+    }
+
+    @Test
+    void countMatchesTheRowsOfAJoin() throws SQLException {
+        DB.getConnection().execute("CREATE TABLE labels (id INTEGER PRIMARY KEY, item_id INTEGER, label TEXT)");
+        for (int id = 1; id <= 10; id++) {
+            // two labels for each item so the join matches every item twice
+            DB.command("labels").insert(Map.of("item_id", id, "label", "red"));
+            DB.command("labels").insert(Map.of("item_id", id, "label", "blue"));
+        }
+
+        assertEquals(10, DB.<IDBRecord>table(ITEMS).join("labels", "l", "item_id", "id").get().size());
+        assertEquals(10, DB.<IDBRecord>table(ITEMS).join("labels", "l", "item_id", "id").count());
+        assertEquals(5, DB.<IDBRecord>table(ITEMS).join("labels", "l", "item_id", "id").limit(5).count());
+        assertEquals(10, DB.<IDBRecord>table(ITEMS).join("labels", "l", "item_id", "id").where("l.label", "red")
+                .count());
+    }
+
+    private static List<Integer> range(int from, int to) {
+        return IntStream.rangeClosed(from, to).boxed().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,71 @@
+package uk.co.bjdavies.db;
+
+import uk.co.bjdavies.api.config.IDatabaseConfig;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This is the config of a SQLite database in a file of the test's choosing.
+ *
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+public class TestDatabaseConfig implements IDatabaseConfig {
+
+    private final String database;
+    private final boolean modelCache;
+
+    public TestDatabaseConfig(String database) {
+        this(database, true);
+    }
+
+    public TestDatabaseConfig(String database, boolean modelCache) {
+        this.database = database;
+        this.modelCache = modelCache;
+    }
+
+    @Override
+    public String getType() {
+        return "sqlite";
+    }
+
+    @Override
+    public String getUsername() {
+        return null;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getHostname() {
+        return null;
+    }
+
+    @Override
+    public String getPort() {
+        return null;
+    }
+
+    @Override
+    public String getDatabase() {
+        return database;
+    }
+
+    @Override
+    public boolean isModelCacheEnabled() {
+        return modelCache;
+    }
+
+    /**
+     * The tests flush the deferred saves themselves so the interval is long enough that it never fires during one.
+     *
+     * @return long
+     */
+    @Override
+    public long getWriteBehindFlushInterval() {
+        return TimeUnit.HOURS.toMillis(1);
+    }
+}
@@ -0,0 +1,101 @@
+package uk.co.bjdavies.db;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+class TransactionTest extends DatabaseTest {
+
+    @BeforeEach
+    void createNotes() {
+        ModelUtils.createTable(Note.class);
+    }
+
+    @Test
+    void commitsTheWork() {
+        DB.transaction(transaction -> {
+            transaction.command("notes").insert(Map.of("id", 1, "body", "first"));
+            transaction.command("notes").insert(Map.of("id", 2, "body", "second"));
+        });
+
+        assertEquals(2, DB.table("notes").count());
+    }
+
+    @Test
+    void rollsBackWhenACommandFails() {
+        assertThrows(SQLException.class, () -> DB.transaction(transaction -> {
+            transaction.command("notes").insert(Map.of("id", 1, "body", "first"));
+            // the id is already taken so this insert fails
+            transaction.command("notes").insert(Map.of("id", 1, "body", "second"));
+        }));
+
+        assertEquals(0, DB.table("notes").count());
+    }
+
+    @Test
+    void rollsBackWhenAsked() {
+        DB.transaction(transaction -> {
+            transaction.command("notes").insert(Map.of("id", 1, "body", "first"));
+            transaction.rollback();
+        });
+
+        assertEquals(0, DB.table("notes").count());
+    }
+
+    @Test
+    void seesItsOwnWritesBeforeCommitting() {
+        DB.transaction(transaction -> {
+            transaction.command("notes").insert(Map.of("id", 1, "body", "first"));
+            assertTrue(transaction.table("notes").where("id", 1).exists());
+        });
+    }
+
+    @Test
+    void nestedRollbackOnlyUndoesTheNestedWork() {
+        DB.transaction(outer -> {
+            outer.command("notes").insert(Map.of("id", 1, "body", "outer"));
+            DB.transaction(inner -> {
+                inner.command("notes").insert(Map.of("id", 2, "body", "inner"));
+                inner.rollback();
+            });
+            outer.command("notes").insert(Map.of("id", 3, "body", "outer"));
+        });
+
+        assertTrue(DB.table("notes").where("id", 1).exists());
+        assertFalse(DB.table("notes").where("id", 2).exists());
+        assertTrue(DB.table("notes").where("id", 3).exists());
+    }
+
+    @Test
+    void failedNestedTransactionLeavesTheOuterWork() {
+        DB.transaction(outer -> {
+            outer.command("notes").insert(Map.of("id", 1, "body", "outer"));
+            assertThrows(SQLException.class, () -> DB.transaction(inner -> {
+                inner.command("notes").insert(Map.of("id", 2, "body", "inner"));
+                inner.command("notes").insert(Map.of("id", 2, "body", "inner"));
+            }));
+            outer.command("notes").insert(Map.of("id", 3, "body", "outer"));
+        });
+
+        assertEquals(2, DB.table("notes").count());
+        assertFalse(DB.table("notes").where("id", 2).exists());
+    }
+
+    @Test
+    void failedCommandOutsideATransactionReturnsFalse() {
+        assertTrue(DB.insert("notes", Map.of("id", 1, "body", "first")));
+        assertFalse(DB.insert("notes", Map.of("id", 1, "body", "second")));
+        assertEquals(1, DB.table("notes").count());
+    }
+}
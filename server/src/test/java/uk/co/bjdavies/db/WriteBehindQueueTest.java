@@ -0,0 +1,252 @@
+package uk.co.bjdavies.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import uk.co.bjdavies.api.db.WriteBehind;
+import uk.co.bjdavies.api.db.fields.IntField;
+import uk.co.bjdavies.api.db.fields.PrimaryField;
+import uk.co.bjdavies.api.db.fields.StringField;
+import uk.co.bjdavies.db.impl.ImplModel;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+class WriteBehindQueueTest extends DatabaseTest {
+
+    private Scheduler scheduler;
+    private WriteBehindQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = Schedulers.newSingle("write-behind-test");
+        queue = new WriteBehindQueue(scheduler, 100, TimeUnit.HOURS.toMillis(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.dispose();
+    }
+
+    @Test
+    void failedFlushKeepsTheSave() {
+        RecordingSave save = new RecordingSave(true);
+        queue.enqueue("notes", 1, new Object(), save);
+
+        assertEquals(0, queue.flush());
+        assertEquals(1, queue.size());
+        assertFalse(save.committed);
+
+        save.failing = false;
+
+        assertEquals(1, queue.flush());
+        assertEquals(0, queue.size());
+        assertTrue(save.committed);
+    }
+
+    @Test
+    void badSaveDoesNotHoldBackTheRest() {
+        RecordingSave bad = new RecordingSave(true);
+        RecordingSave good = new RecordingSave(false);
+        queue.enqueue("notes", 1, new Object(), bad);
+        queue.enqueue("notes", 2, new Object(), good);
+
+        assertEquals(1, queue.flush());
+
+        assertTrue(good.committed);
+        assertFalse(bad.committed);
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    void newerSaveReplacesTheOlderOne() {
+        Object model = new Object();
+        RecordingSave older = new RecordingSave(false);
+        RecordingSave newer = new RecordingSave(false);
+        queue.enqueue("notes", 1, model, older);
+        queue.enqueue("Notes", 1, model, newer);
+
+        assertEquals(1, queue.size());
+        assertEquals(1, queue.flush());
+
+        assertEquals(0, older.writes);
+        assertTrue(newer.committed);
+    }
+
+    @Test
+    void failedSaveIsNotPutBackOverANewerOne() {
+        Object model = new Object();
+        RecordingSave newer = new RecordingSave(false);
+        RecordingSave older = new RecordingSave(true) {
+            @Override
+            public void write() {
+                if (writes == 0) {
+                    // the model is saved again while the flush is writing the older save
+                    queue.enqueue("notes", 1, model, newer);
+                }
+                super.write();
+            }
+        };
+        queue.enqueue("notes", 1, model, older);
+
+        assertEquals(0, queue.flush());
+        assertEquals(1, queue.size());
+        assertEquals(1, queue.flush());
+
+        assertFalse(older.committed);
+        assertTrue(newer.committed);
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void flushesDoNotOverlap() throws InterruptedException {
+        Object model = new Object();
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> written = new CopyOnWriteArrayList<>();
+        queue.enqueue("notes", 1, model, new RecordingSave(false) {
+            @Override
+            public void write() {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                written.add("older");
+            }
+        });
+        Thread first = new Thread(queue::flush);
+        first.start();
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+        queue.enqueue("notes", 1, model, new RecordingSave(false) {
+            @Override
+            public void write() {
+                written.add("newer");
+            }
+        });
+        Thread second = new Thread(queue::flush);
+        second.start();
+        second.join(200);
+
+        assertTrue(written.isEmpty());
+        release.countDown();
+        first.join();
+        second.join();
+
+        assertEquals(List.of("older", "newer"), written);
+    }
+
+    @Test
+    void closedQueueWritesWhatIsWaitingAndThenNothing() {
+        RecordingSave first = new RecordingSave(false);
+        RecordingSave second = new RecordingSave(false);
+        queue.enqueue("notes", 1, new Object(), first);
+
+        queue.close();
+        queue.enqueue("notes", 2, new Object(), second);
+
+        assertTrue(first.committed);
+        assertEquals(0, queue.flush());
+        assertEquals(0, second.writes);
+    }
+
+    @Test
+    void deferredSaveWritesTheValuesItWasTakenWith() {
+        Draft draft = new Draft("first");
+        draft.save();
+        draft.setBody("second");
+        draft.save();
+        draft.setBody("third");
+
+        assertEquals("first", body(draft));
+
+        DB.flush();
+
+        assertEquals("second", body(draft));
+        assertTrue(draft.isDirty("body"));
+        draft.setBody("second");
+        assertFalse(draft.isDirty());
+    }
+
+    @Test
+    void deferredSaveOfAMissingRowIsKept() {
+        Draft draft = new Draft("first");
+        draft.save();
+        DB.command("drafts").where("id", draft.getId()).delete();
+        draft.setBody("second");
+        draft.save();
+
+        DB.flush();
+
+        assertTrue(draft.isDirty());
+        assertEquals(1, DB.writeBehind().size());
+    }
+
+    private static String body(Draft draft) {
+        return DB.table("drafts").where("id", draft.getId()).first().orElseThrow().getString("body");
+    }
+
+    private static class RecordingSave implements WriteBehindQueue.DeferredSave {
+
+        boolean failing;
+        int writes;
+        boolean committed;
+
+        RecordingSave(boolean failing) {
+            this.failing = failing;
+        }
+
+        @Override
+        public void write() {
+            writes++;
+            if (failing) {
+                throw new IllegalStateException("the write failed");
+            }
+        }
+
+        @Override
+        public void committed() {
+            committed = true;
+        }
+    }
+
+    @WriteBehind
+    static class Draft extends ImplModel {
+
+        @IntField
+        @PrimaryField
+        private int id;
+
+        @StringField(charLimit = 255)
+        private String body;
+
+        Draft() {
+        }
+
+        Draft(String body) {
+            this.body = body;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public void setBody(String body) {
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package uk.co.bjdavies.db.impl;
+
+import org.junit.jupiter.api.Test;
+import uk.co.bjdavies.db.DB;
+import uk.co.bjdavies.db.DatabaseTest;
+import uk.co.bjdavies.db.Note;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+class ImplModelTest extends DatabaseTest {
+
+    @Test
+    void newModelIsDirtyUntilSaved() {
+        Note note = new Note("first");
+        assertTrue(note.isDirty());
+
+        note.save();
+
+        assertFalse(note.isDirty());
+        assertTrue(note.getId() > 0);
+        assertEquals(1, DB.table("notes").where("id", note.getId()).count());
+    }
+
+    @Test
+    void tracksEachColumn() {
+        Note note = new Note("first");
+        note.save();
+
+        note.setBody("changed");
+
+        assertTrue(note.isDirty());
+        assertTrue(note.isDirty("body"));
+        assertFalse(note.isDirty("id"));
+
+        note.save();
+
+        assertFalse(note.isDirty("body"));
+        assertEquals("changed", DB.table("notes").where("id", note.getId()).first().orElseThrow()
+                .getString("body"));
+    }
+
+    @Test
+    void unknownColumnIsRejected() {
+        Note note = new Note("first");
+
+        assertThrows(IllegalArgumentException.class, () -> note.isDirty("title"));
+    }
+
+    @Test
+    void failedUpdateLeavesTheModelDirty() {
+        Note note = new Note("first");
+        note.save();
+        DB.command("notes").where("id", note.getId()).delete();
+
+        note.setBody("changed");
+        note.save();
+
+        assertTrue(note.isDirty());
+        assertTrue(note.isDirty("body"));
+    }
+
+    @Test
+    void failedCreateLeavesTheModelDirty() {
+        new Note("first").save();
+        Note duplicate = new Note("first");
+
+        duplicate.save();
+
+        assertTrue(duplicate.isDirty());
+        assertEquals(0, duplicate.getId());
+        assertEquals(1, DB.table("notes").count());
+    }
+
+    @Test
+    void failedCreateInATransactionRollsItBack() {
+        new Note("first").save();
+
+        assertThrows(SQLException.class, () -> DB.transaction(transaction -> {
+            new Note("second").save();
+            new Note("first").save();
+        }));
+
+        assertEquals(1, DB.table("notes").count());
+    }
+}
@@ -0,0 +1,151 @@
+package uk.co.bjdavies.db.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.co.bjdavies.api.db.Model;
+import uk.co.bjdavies.api.db.fields.IntField;
+import uk.co.bjdavies.api.db.fields.PrimaryField;
+import uk.co.bjdavies.api.db.fields.StringField;
+import uk.co.bjdavies.db.DB;
+import uk.co.bjdavies.db.DatabaseTest;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+class RelationLoaderTest extends DatabaseTest {
+
+    private User alice;
+    private User bob;
+    private User carol;
+    private Role admin;
+    private Role moderator;
+    private Role member;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        DB.getConnection().execute("CREATE TABLE role_user (roleId INTEGER, userId INTEGER)");
+
+        alice = save(new User("alice"));
+        bob = save(new User("bob"));
+        carol = save(new User("carol"));
+        // the roles are saved in the opposite order so their ids don't line up with the users'
+        member = save(new Role("member"));
+        moderator = save(new Role("moderator"));
+        admin = save(new Role("admin"));
+
+        link(alice, admin);
+        link(alice, member);
+        link(bob, moderator);
+    }
+
+    @Test
+    void mapsEachModelToItsOwnRelatedModels() {
+        Map<Model, List<Role>> roles = RelationLoader.belongsToMany(List.of(alice, bob, carol), Role.class);
+
+        assertEquals(3, roles.size());
+        assertEquals(List.of("admin", "member"), names(roles.get(alice)));
+        assertEquals(List.of("moderator"), names(roles.get(bob)));
+        assertTrue(roles.get(carol).isEmpty());
+    }
+
+    @Test
+    void relatedModelsKeepTheirOwnKeys() {
+        Map<Model, List<Role>> roles = RelationLoader.belongsToMany(List.of(alice, bob), Role.class);
+
+        for (Role role : roles.get(alice)) {
+            assertEquals(role.getName().equals("admin") ? admin.getId() : member.getId(), role.getId());
+        }
+        assertEquals(moderator.getId(), roles.get(bob).get(0).getId());
+    }
+
+    @Test
+    void loadsTheRelationOfOneModel() {
+        assertEquals(List.of("admin", "member"), names(alice.getRoles()));
+        assertEquals(List.of("moderator"), names(bob.getRoles()));
+        assertTrue(carol.getRoles().isEmpty());
+    }
+
+    @Test
+    void worksFromEitherSide() {
+        Map<Model, List<User>> users = RelationLoader.belongsToMany(List.of(admin, moderator), User.class);
+
+        assertEquals(List.of("alice"), users.get(admin).stream().map(User::getName).collect(Collectors.toList()));
+        assertEquals(List.of("bob"), users.get(moderator).stream().map(User::getName).collect(Collectors.toList()));
+    }
+
+    private static <T extends ImplModel> T save(T model) {
+        model.save();
+        return model;
+    }
+
+    private static void link(User user, Role role) {
+        assertTrue(DB.insert("role_user", Map.of("roleId", role.getId(), "userId", user.getId())));
+    }
+
+    private static List<String> names(List<Role> roles) {
+        return roles.stream().map(Role::getName).sorted().collect(Collectors.toList());
+    }
+
+    static class User extends ImplModel {
+
+        @IntField
+        @PrimaryField
+        private int id;
+
+        @StringField(charLimit = 255)
+        private String name;
+
+        User() {
+        }
+
+        User(String name) {
+            this.name = name;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<Role> getRoles() {
+            return belongsToMany(Role.class);
+        }
+    }
+
+    static class Role extends ImplModel {
+
+        @IntField
+        @PrimaryField
+        private int id;
+
+        @StringField(charLimit = 255)
+        private String name;
+
+        Role() {
+        }
+
+        Role(String name) {
+            this.name = name;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package uk.co.bjdavies.variables;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.co.bjdavies.api.variables.IVariableContainer;
+import uk.co.bjdavies.api.variables.Variable;
+import uk.co.bjdavies.api.variables.VariableLifecycle;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * @author ben.davies99@outlook.com (Ben Davies)
+ * @since 2.2.0
+ */
+class VariableContainerTest {
+
+    private static final VariableTemplateCompiler COMPILER = new VariableTemplateCompiler(new DollarSignStrategy(),
+            16);
+
+    private VariableContainer container;
+
+    @BeforeEach
+    void setUp() {
+        container = new VariableContainer();
+        Greeter.created = 0;
+    }
+
+    @Test
+    void resolvesPerEvaluationField() {
+        container.addAllFrom(Greeter.class);
+
+        assertNotNull(container.getFieldHandle("greeting"));
+        assertEquals("hello world", render("$(greeting) world"));
+    }
+
+    @Test
+    void resolvesPerEvaluationMethod() {
+        container.addAllFrom(Greeter.class);
+
+        assertNotNull(container.getMethodHandle("greet"));
+        assertEquals("hello there", render("$(greet(there))"));
+    }
+
+    @Test
+    void perEvaluationMakesAnInstanceEachTime() {
+        container.addAllFrom(Greeter.class, VariableLifecycle.PER_EVALUATION);
+
+        render("$(greeting)");
+        render("$(greeting)");
+
+        assertEquals(2, Greeter.created);
+    }
+
+    @Test
+    void singletonMakesOneInstance() {
+        container.addAllFrom(Greeter.class, VariableLifecycle.SINGLETON);
+
+        assertEquals("hello world", render("$(greeting) world"));
+        assertEquals("hello there", render("$(greet(there))"));
+        assertEquals(1, Greeter.created);
+    }
+
+    @Test
+    void resolvesFieldAndMethodAddedByHand() throws ReflectiveOperationException {
+        container.addField("salutation", Greeter.class.getField("greeting"));
+        container.addMethod("welcome", Greeter.class.getMethod("greet", String.class));
+
+        assertEquals("hello and hello you", render("$(salutation) and $(welcome(you))"));
+    }
+
+    @Test
+    void resolvesGlobalVariables() {
+        container.addAllFrom(GlobalVariables.class);
+
+        assertEquals(new GlobalVariables().testVar, render("$(testVar)"));
+    }
+
+    @Test
+    void unknownVariableIsLeftAsItsName() {
+        assertEquals("missing", render("$(missing)"));
+    }
+
+    @Test
+    void containerWithoutHandlesGetsThemFromTheDefaults() throws ReflectiveOperationException {
+        LegacyContainer legacy = new LegacyContainer();
+        legacy.addField("greeting", Greeter.class.getField("greeting"));
+        legacy.addMethod("greet", Greeter.class.getMethod("greet", String.class));
+
+        assertEquals("hello and hello you", COMPILER.compile("$(greeting) and $(greet(you))").render(legacy));
+    }
+
+    private String render(String response) {
+        return COMPILER.compile(response).render(container);
+    }
+
+    /**
+     * This is a container written before the handles were added, it only has the methods it had then.
+     */
+    private static class LegacyContainer implements IVariableContainer {
+
+        private final Map<String, Field> fields = new HashMap<>();
+        private final Map<String, Method> methods = new HashMap<>();
+
+        @Override
+        public void addAllFrom(Class<?> clazz) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void addMethod(String name, Method method) {
+            methods.put(name, method);
+        }
+
+        @Override
+        public void addField(String name, Field field) {
+            fields.put(name, field);
+        }
+
+        @Override
+        public void remove(String name) {
+            fields.remove(name);
+            methods.remove(name);
+        }
+
+        @Override
+        public Field getFieldVariable(String name) {
+            return fields.get(name);
+        }
+
+        @Override
+        public Method getMethodVariable(String name) {
+            return methods.get(name);
+        }
+
+        @Override
+        public boolean exists(String name) {
+            return fields.containsKey(name) || methods.containsKey(name);
+        }
+    }
+
+    public static class Greeter {
+
+        static int created;
+
+        @Variable
+        public String greeting = "hello";
+
+        public Greeter() {
+            created++;
+        }
+
+        @Variable
+        public String greet(String who) {
+            return greeting + " " + who;
+        }
+    }
+}